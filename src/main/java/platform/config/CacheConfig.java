@@ -0,0 +1,41 @@
+package platform.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Кеш готовых ответов. Сброс записей откладывается до коммита транзакции (TransactionAwareCacheManagerProxy),
+ * иначе параллельное чтение успело бы положить в кеш старые данные до коммита изменения.
+ * Статистика попаданий публикуется в Micrometer как cache.* с тегом cache=fullAds
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * {@link platform.dto.FullAdDto} по id объявления
+     */
+    public static final String FULL_ADS = "fullAds";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.full-ads.size:10000}") long size,
+                                     @Value("${cache.full-ads.ttl-seconds:600}") long ttlSeconds) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats());
+        cacheManager.setCacheNames(List.of(FULL_ADS));
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,69 @@
+package platform.config;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Отдаёт файловые ресурсы без копирования через кучу JVM:
+ * если Tomcat поддерживает sendfile - файл отправляет сам коннектор после выхода из контроллера,
+ * иначе содержимое переливается через {@link FileChannel#transferTo}.
+ * Остальные ресурсы пишутся как в {@link ResourceHttpMessageConverter}
+ */
+public class SendfileResourceHttpMessageConverter extends ResourceHttpMessageConverter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Маленькие файлы дешевле отдать обычной записью (тот же порог, что у DefaultServlet в Tomcat)
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    @Override
+    protected void writeContent(Resource resource, HttpOutputMessage outputMessage) throws IOException {
+        if (!resource.isFile()) {
+            super.writeContent(resource, outputMessage);
+            return;
+        }
+        File file = resource.getFile();
+        long size = file.length();
+        HttpServletRequest request = currentRequest();
+        if (request != null && size >= SENDFILE_MIN_SIZE && "GET".equals(request.getMethod())
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            //Content-Length уже выставлен, тело запишет коннектор
+            request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(outputMessage.getBody());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletRequestAttributes) {
+            return servletRequestAttributes.getRequest();
+        }
+        return null;
+    }
+}
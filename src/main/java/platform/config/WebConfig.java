@@ -0,0 +1,30 @@
+package platform.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import platform.model.ImageSize;
+
+import java.util.List;
+
+/**
+ * Настройки Spring MVC
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        //?size=thumbnail в любом регистре
+        registry.addConverter(String.class, ImageSize.class, ImageSize::of);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        //картинки из файлового хранилища отдаём через sendfile
+        converters.replaceAll(converter -> converter instanceof ResourceHttpMessageConverter
+                ? new SendfileResourceHttpMessageConverter() : converter);
+    }
+}
@@ -6,15 +6,24 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import platform.dto.AdCreateDto;
+import platform.dto.CommentCursor;
 import platform.dto.FullAdDto;
+import platform.dto.ImportResultDto;
 import platform.dto.ResponseWrapper;
 import platform.dto.ResponseWrapperCommentDto;
 import platform.dto.model_dto.AdsDto;
@@ -23,18 +32,31 @@ import platform.mapper.AdCommentMapper;
 import platform.mapper.AdMapper;
 import platform.model.Ads;
 import platform.model.Comment;
+import platform.model.Image;
+import platform.model.ImageSize;
+import platform.service.AdExportService;
+import platform.service.AdImportService;
 import platform.service.AdService;
 import platform.service.ImageService;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @RestController()
 @RequiredArgsConstructor
 @CrossOrigin(value = "http://localhost:3000")
 @RequestMapping("/ads")
 public class AdController {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final AdService adservice;
+    private final AdImportService adImportService;
+    private final AdExportService adExportService;
     private final AdMapper adMapper;
     private final AdCommentMapper commentMapper;
     private final ImageService imageService;
@@ -49,8 +71,16 @@ public class AdController {
             },
             tags = "ADS")
     @GetMapping
-    public ResponseWrapper<AdsDto> getAllAds() {
-        return ResponseWrapper.of(adservice.getAllAds().stream().map(adMapper::toDto).toList());
+    public ResponseWrapper<AdsDto> getAllAds(@RequestParam(value = "after", required = false) Integer after,
+                                             @RequestParam(value = "limit", required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseWrapper.of(adservice.getAllAds());
+        }
+        //постраничный режим: next - id последнего объявления на странице, если страница заполнена целиком
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<AdsDto> page = adservice.getAdsPage(after, pageSize);
+        String next = page.size() == pageSize ? String.valueOf(page.get(page.size() - 1).getPk()) : null;
+        return ResponseWrapper.of(page, next);
     }
 
 
@@ -77,11 +107,49 @@ public class AdController {
                     @ApiResponse(responseCode = "403", description = "Forbidden", content = {}),
                     @ApiResponse(responseCode = "401", description = "Unauthorized", content = {})}, tags = "ADS")
     @PatchMapping(value = "/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("@permissionService.canEditAds(#id)")
     public ResponseEntity<?> updateAdsImage(@PathVariable("id") int id, @NotNull @RequestBody MultipartFile image) {
         adservice.updateAdsImage(id, image);
         return ResponseEntity.ok().build();
     }
 
+    @Operation(summary = "Массовый импорт объявлений из NDJSON или CSV", operationId = "importAds",
+            responses = {@ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ImportResultDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Bad Request"),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized", content = {}),
+                    @ApiResponse(responseCode = "503", description = "Service Unavailable", content = {})}, tags = "ADS")
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<ImportResultDto> importAds(HttpServletRequest request) throws IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        //тело читается потоком по строкам, а не целиком
+        return ResponseEntity.ok(adImportService.importAds(request.getInputStream(),
+                MediaType.parseMediaType(request.getContentType()), authentication.getName()));
+    }
+
+    @Operation(summary = "Выгрузка всех объявлений в NDJSON или CSV", operationId = "exportAds",
+            responses = {@ApiResponse(responseCode = "200", description = "OK",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+                    @ApiResponse(responseCode = "400", description = "Bad Request"),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = {}),
+                    @ApiResponse(responseCode = "503", description = "Service Unavailable", content = {})}, tags = "ADS")
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAds(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format: ndjson или csv");
+        }
+        MediaType mediaType = csv ? AdImportService.CSV : AdImportService.NDJSON;
+        return ResponseEntity.ok()
+                .contentType(new MediaType(mediaType, StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "ads.csv" : "ads.ndjson").build().toString())
+                .body(adExportService.exportAds(mediaType));
+    }
+
     @Operation(summary = "Показать объявления авторизованного пользователя", operationId = "getMyAds",
             responses = {@ApiResponse(responseCode = "200",
                     content = @Content(
@@ -94,7 +162,7 @@ public class AdController {
     @GetMapping("/me")
     public ResponseWrapper<AdsDto> getMyAds() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return ResponseWrapper.of(adservice.getMyAds(authentication.getName()).stream().map(adMapper::toDto).toList());
+        return ResponseWrapper.of(adservice.getMyAds(authentication.getName()));
     }
 
 
@@ -121,8 +189,25 @@ public class AdController {
                     @ApiResponse(responseCode = "404",
                             description = "Not Found")}, tags = "ADS")
     @GetMapping("/{ad_pk}/comments")
-    public ResponseWrapper<CommentDto> getComments(@PathVariable("ad_pk") int adPk) {
-        return ResponseWrapper.of(adservice.getComments(adPk).stream().map(commentMapper::toDto).toList());
+    public ResponseWrapper<CommentDto> getComments(@PathVariable("ad_pk") int adPk,
+                                                   @RequestParam(value = "after", required = false) String after,
+                                                   @RequestParam(value = "limit", required = false) Integer limit,
+                                                   @RequestParam(value = "all", defaultValue = "false") boolean all) {
+        //без параметров - первая страница; весь список одним ответом только по явному all=true для старых клиентов
+        if (all) {
+            return ResponseWrapper.of(adservice.getComments(adPk).stream().map(commentMapper::toDto).toList());
+        }
+        CommentCursor cursor;
+        try {
+            cursor = after == null ? null : CommentCursor.parse(after);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        //next - курсор последнего комментария, если страница заполнена целиком; total - по счётчику
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Comment> page = adservice.getCommentsPage(adPk, cursor, pageSize);
+        String next = page.size() == pageSize ? CommentCursor.of(page.get(page.size() - 1)).toString() : null;
+        return ResponseWrapper.of(page.stream().map(commentMapper::toDto).toList(), next, adservice.getCommentCount(adPk));
     }
 
     @Operation(summary = "Получить комментарии по id", operationId = "getAdsComment",
@@ -162,13 +247,18 @@ public class AdController {
                     content = @Content(
                             mediaType = MediaType.ALL_VALUE,
                             array = @ArraySchema(schema = @Schema(implementation = Byte.class)))),
+                    @ApiResponse(responseCode = "304", description = "Not Modified", content = {}),
                     @ApiResponse(responseCode = "404",
                             description = "Not Found"),
                     @ApiResponse(responseCode = "403", description = "Forbidden", content = {}),
                     @ApiResponse(responseCode = "401", description = "Unauthorized", content = {})}, tags = "ADS")
-    @GetMapping(value = "/image/{id}", produces = {MediaType.IMAGE_PNG_VALUE})
-    public ResponseEntity<byte[]> getAdsImage(@PathVariable("id") int id) {
-        return ResponseEntity.ok(imageService.getImageById(id).getImage());
+    @GetMapping("/image/{id}")
+    public ResponseEntity<Resource> getAdsImage(@PathVariable("id") int id,
+                                              @RequestParam(value = "size", defaultValue = "original") ImageSize size,
+                                              WebRequest request) {
+        Image image = imageService.getImageById(id);
+        ImageSize served = imageService.resolveSize(image, size);
+        return ImageResponses.of(image, size, served, request, () -> imageService.getImageResource(image, served));
     }
 
     @Operation(summary = "Сменить картинку объявления по id", operationId = "updateAdImage",
@@ -178,6 +268,7 @@ public class AdController {
                     @ApiResponse(responseCode = "403", description = "Forbidden", content = {}),
                     @ApiResponse(responseCode = "401", description = "Unauthorized", content = {})}, tags = "ADS")
     @PatchMapping(value = "/{id}/image-update", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("@permissionService.canEditAds(#id)")
     public ResponseEntity<?> updateAdImage(@PathVariable("id") int id, @NotNull @RequestBody MultipartFile image) {
         adservice.updateAdsImage(id, image);
         return ResponseEntity.ok().build();
@@ -195,6 +286,7 @@ public class AdController {
                     @ApiResponse(responseCode = "403", description = "Forbidden", content = {}),
                     @ApiResponse(responseCode = "401", description = "Unauthorized", content = {})}, tags = "ADS")
     @PatchMapping("/{adId}")
+    @PreAuthorize("@permissionService.canEditAds(#adId)")
     public ResponseEntity<AdsDto> updateAds(@PathVariable("adId") Integer adId, @RequestBody AdCreateDto adCreateDto) {
 
         return ResponseEntity.ok(adMapper.toDto(adservice.updateAds(adId, adCreateDto)));
@@ -208,6 +300,7 @@ public class AdController {
                     @ApiResponse(responseCode = "403", description = "Forbidden", content = {}),
             }, tags = "ADS")
     @DeleteMapping("/{id}")
+    @PreAuthorize("@permissionService.canEditAds(#adId)")
     public ResponseEntity<Void> deleteAds(@PathVariable("id") int adId) {
         adservice.deleteAdsById(adId);
         return ResponseEntity.ok().build();
@@ -221,6 +314,7 @@ public class AdController {
                     @ApiResponse(responseCode = "403", description = "Forbidden", content = {}),
                     @ApiResponse(responseCode = "401", description = "Unauthorized", content = {})}, tags = "ADS")
     @DeleteMapping("/{ad_pk}/comments/{id}")
+    @PreAuthorize("@permissionService.canEditComment(#ad_pk, #id)")
     public ResponseEntity<HttpStatus> deleteComment(@PathVariable("ad_pk") int ad_pk,
                                                     @PathVariable("id") int id) {
         adservice.deleteComment(ad_pk, id);
@@ -237,6 +331,7 @@ public class AdController {
                     @ApiResponse(responseCode = "403", description = "Forbidden", content = {}),
                     @ApiResponse(responseCode = "401", description = "Unauthorized", content = {})}, tags = "ADS")
     @PatchMapping("/{ad_pk}/comments/{id}")
+    @PreAuthorize("@permissionService.canEditComment(#adPk, #id)")
     public ResponseEntity<CommentDto> updateComments(@PathVariable("ad_pk") int adPk,
                                                      @PathVariable int id,
                                                      @RequestBody CommentDto adCommentDto) {
@@ -0,0 +1,70 @@
+package platform.controller;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import platform.model.Image;
+import platform.model.ImageFormat;
+import platform.model.ImageSize;
+
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Ответы с картинками для контроллеров объявлений и пользователей.
+ * Содержимое картинки по id никогда не меняется (новая картинка - новый id), поэтому ответ кешируется навсегда,
+ * а ETag - это ключ содержимого в хранилище. На If-None-Match/If-Modified-Since отвечаем 304 по одним метаданным.
+ * Если вместо запрошенного варианта пока отдаётся оригинал, ответ нужно перепроверять, чтобы потом получить вариант.
+ * Тело - {@link Resource}, поэтому Range/206 и потоковую отдачу Spring делает сам.
+ * Content-Type берётся только из {@link ImageFormat}; всё остальное (строки, загруженные до проверки формата)
+ * отдаётся как application/octet-stream вложением, а nosniff не даёт браузеру угадать HTML
+ */
+final class ImageResponses {
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String CACHE_CONTROL_FALLBACK = "public, no-cache";
+    private static final String NOSNIFF_HEADER = "X-Content-Type-Options";
+
+    private ImageResponses() {
+    }
+
+    /**
+     * @param requested запрошенный размер
+     * @param served    размер, который реально отдаётся
+     */
+    static ResponseEntity<Resource> of(Image image, ImageSize requested, ImageSize served,
+                                       WebRequest request, Supplier<Resource> content) {
+        String cacheControl = requested == served ? CACHE_CONTROL : CACHE_CONTROL_FALLBACK;
+        //checkNotModified сам выставляет ETag и Last-Modified в ответ
+        if (request.checkNotModified(etag(image, served), lastModified(image))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .header(NOSNIFF_HEADER, "nosniff");
+        Optional<ImageFormat> format = ImageFormat.ofMediaType(image.getMediaType());
+        if (format.isPresent()) {
+            response.contentType(MediaType.parseMediaType(format.get().getMediaType()));
+        } else {
+            response.contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().build().toString());
+        }
+        return response.body(content.get());
+    }
+
+    private static String etag(Image image, ImageSize size) {
+        return image.getHash() == null ? null : "\"" + size.key(image.getHash()) + "\"";
+    }
+
+    private static long lastModified(Image image) {
+        return image.getCreatedAt() == null ? -1
+                : image.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -5,18 +5,25 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import platform.dto.NewPasswordDto;
 import platform.dto.model_dto.UserDto;
 import platform.mapper.UserMapper;
+import platform.model.Image;
+import platform.model.ImageSize;
 import platform.model.User;
 import platform.repository.UserRepository;
 import platform.security.dto.Role;
+import platform.service.AdService;
 import platform.service.ImageService;
 import platform.service.UserService;
 
@@ -27,6 +34,7 @@ import platform.service.UserService;
 public class UserController {
 
     private final UserService userService;
+    private final AdService adService;
     private final ImageService imageService;
     private final UserMapper userMapper;
     private final UserRepository userRepository;
@@ -132,6 +140,17 @@ public class UserController {
                 userMapper.toDto(userService.updateUser(userDto, authentication.getName())));
     }
 
+    @Operation(summary = "Удалить все объявления и комментарии пользователя (модерация)", operationId = "deleteUserContent",
+            responses = {@ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = {}),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized", content = {})}, tags = "USER")
+    @DeleteMapping("/{id}/content")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<HttpStatus> deleteUserContent(@PathVariable("id") Integer id) {
+        adService.deleteUserContent(id);
+        return ResponseEntity.ok(HttpStatus.OK);
+    }
+
     @PutMapping("/{id}/updateRole")
     public ResponseEntity<UserDto> updateRole(@PathVariable("id") Integer id, Role role) {
         UserDto userDto = userMapper.toDto(userService.updateRole(id, role));
@@ -143,13 +162,21 @@ public class UserController {
                     responseCode = "200",
                     description = "Image is updated"
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not Modified"
+            ),
             @ApiResponse(
                     responseCode = "404",
                     description = "Not Found"
             )}, tags = "USER")
-    @GetMapping(value = "/image/{id}", produces = {MediaType.IMAGE_PNG_VALUE})
-    public ResponseEntity<byte[]> getImageById(@PathVariable("id") Integer id) {
-        return ResponseEntity.ok(imageService.getImageById(id).getImage());
+    @GetMapping("/image/{id}")
+    public ResponseEntity<Resource> getImageById(@PathVariable("id") Integer id,
+                                              @RequestParam(value = "size", defaultValue = "original") ImageSize size,
+                                              WebRequest request) {
+        Image image = imageService.getImageById(id);
+        ImageSize served = imageService.resolveSize(image, size);
+        return ImageResponses.of(image, size, served, request, () -> imageService.getImageResource(image, served));
     }
 
 
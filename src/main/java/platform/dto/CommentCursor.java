@@ -0,0 +1,37 @@
+package platform.dto;
+
+import platform.model.Comment;
+
+import java.time.LocalDateTime;
+
+/**
+ * Курсор страницы комментариев: createdAt и id последнего комментария страницы.
+ * В запросе передаётся строкой вида 2024-05-01T10:15:30.123_42
+ */
+public record CommentCursor(LocalDateTime createdAt, int id) {
+
+    public static CommentCursor of(Comment comment) {
+        return new CommentCursor(comment.getCreatedAt(), comment.getId());
+    }
+
+    /**
+     * @throws IllegalArgumentException если строка не похожа на курсор
+     */
+    public static CommentCursor parse(String value) {
+        int separator = value.lastIndexOf('_');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Неверный курсор: " + value);
+        }
+        try {
+            return new CommentCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Integer.parseInt(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Неверный курсор: " + value, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return createdAt + "_" + id;
+    }
+}
@@ -0,0 +1,30 @@
+package platform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог массового импорта: ошибочные строки пропускаются, остальные сохраняются.
+ * errors ограничен ads.import.max-errors, failed считает все
+ */
+@Data
+public class ImportResultDto {
+
+    private int imported;
+    private int failed;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Getter
+    @AllArgsConstructor
+    public static class RowError {
+        /**
+         * Номер строки во входных данных, с 1
+         */
+        private long line;
+        private String message;
+    }
+}
@@ -1,11 +1,14 @@
 package platform.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.util.Collection;
 
 /**
  * Решает проблему вывода коллекций через ResponseEntity
+ * При постраничном выводе count - размер текущей страницы, а next - курсор следующей страницы
+ * (null, если страница последняя); total - сколько всего записей, если известно
  *
  * @param <A>
  */
@@ -18,6 +21,9 @@ import java.util.Collection;
 public class ResponseWrapper<A> {
     private Integer count;
     private Collection<A> results;
+    private String next;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long total;
 
     public static <A> ResponseWrapper<A> of(Collection<A> results) {
         ResponseWrapper<A> responseWrapper = new ResponseWrapper<>();
@@ -28,4 +34,16 @@ public class ResponseWrapper<A> {
         responseWrapper.count = results.size();
         return responseWrapper;
     }
+
+    public static <A> ResponseWrapper<A> of(Collection<A> results, String next) {
+        ResponseWrapper<A> responseWrapper = of(results);
+        responseWrapper.next = next;
+        return responseWrapper;
+    }
+
+    public static <A> ResponseWrapper<A> of(Collection<A> results, String next, Long total) {
+        ResponseWrapper<A> responseWrapper = of(results, next);
+        responseWrapper.total = total;
+        return responseWrapper;
+    }
 }
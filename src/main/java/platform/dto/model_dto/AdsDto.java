@@ -16,4 +16,10 @@ public class AdsDto {
     //    private String description;
     private String image;
 
+    /**
+     * Для выборки сразу в DTO в {@link platform.repository.AdsRepository}, ссылка на картинку как в {@link platform.mapper.AdMapper}
+     */
+    public AdsDto(Integer pk, Integer author, Integer price, String title, Integer imageId) {
+        this(pk, author, price, title, imageId == null ? null : "/ads/image/" + imageId);
+    }
 }
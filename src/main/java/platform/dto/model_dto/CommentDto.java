@@ -1,7 +1,6 @@
 package platform.dto.model_dto;
 
 import lombok.*;
-import platform.model.User;
 
 import java.time.LocalDateTime;
 
@@ -14,7 +13,10 @@ import java.time.LocalDateTime;
 public class CommentDto {
 
     private Integer pk;
-    private User author;
+    /**
+     * id автора комментария
+     */
+    private Integer author;
     private String authorImage;
     private String authorFirstName;
     private LocalDateTime createdAt;
@@ -0,0 +1,11 @@
+package platform.exception;
+
+/**
+ * Сервер сейчас обрабатывает слишком много загрузок, клиенту стоит повторить запрос через Retry-After секунд
+ */
+public class UploadLimitExceededException extends ServiceBusyException {
+
+    public UploadLimitExceededException(long retryAfterSeconds) {
+        super("Too many uploads in progress, please retry later", retryAfterSeconds);
+    }
+}
@@ -16,7 +16,7 @@ public interface AdCommentMapper {
     @Mapping(target = "ad", ignore = true)
     Comment toEntity(CommentDto dto);
 
-    @Mapping(target = "author", source = "ad.adsAuthor")
+    @Mapping(target = "author", source = "commentAuthor.id")
     @Mapping(target = "pk", source = "id")
     @Mapping(target = "createdAt", source = "entity.createdAt")
     @Mapping(target = "authorImage", source = "commentAuthor.image", qualifiedByName = "mapImageToString")
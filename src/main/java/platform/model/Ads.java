@@ -1,6 +1,8 @@
 package platform.model;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -11,7 +13,11 @@ import javax.persistence.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "ads")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Ads.CACHE_REGION)
 public class Ads {
+
+    public static final String CACHE_REGION = "ads";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false)
@@ -26,11 +32,16 @@ public class Ads {
     @Column(name = "title")
     private String title;
 
-    @OneToOne
+    /**
+     * Связи загружаются лениво, автор для карточки подтягивается через @EntityGraph в {@link platform.repository.AdsRepository}
+     */
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "image")
     private Image image;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User adsAuthor;
 
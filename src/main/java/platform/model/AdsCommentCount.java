@@ -0,0 +1,27 @@
+package platform.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+
+/**
+ * Число комментариев объявления, меняется вместе с комментариями.
+ * Отдельная таблица, а не колонка в ads: массовый update по Ads сбрасывал бы весь регион Ads в кеше второго уровня
+ */
+@Entity
+@Table(name = "ads_comment_count")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+public class AdsCommentCount {
+
+    @Id
+    @Column(name = "ads_id")
+    private Integer adsId;
+
+    @Column(name = "comment_count", nullable = false)
+    private long count;
+}
@@ -1,38 +1,50 @@
 package platform.model;
 
 import lombok.*;
-import org.hibernate.annotations.Type;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 
+/**
+ * Метаданные картинки. Сами байты лежат отдельно в {@link ImageData} по ключу hash
+ * и читаются только при отдаче картинки.
+ * Одинаковые загрузки получают одну и ту же строку. Счётчика ссылок нет: картинку без ссылок
+ * находит и удаляет {@link platform.service.impl.OrphanImageCollector} по самим объявлениям и пользователям.
+ * Массовые update/delete по Image сбрасывают весь регион кеша второго уровня
+ */
 @Entity
-@Table(name = "image")
+@Table(name = "image", indexes = @Index(name = "image_hash_idx", columnList = "hash"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Image.CACHE_REGION)
 @NoArgsConstructor
 @EqualsAndHashCode
 @AllArgsConstructor
 @Getter
 @Setter
+@ToString
 public class Image {
 
+    public static final String CACHE_REGION = "image";
+
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Id
     @Column(name = "id")
     private Integer id;
 
-    @Column(name = "data_image")
-    @Lob
-    @Type(type = "binary")
-    private byte[] image;
-
     @Column(name = "file_size")
     private Long fileSize;
 
     @Column(name = "media_type")
     private String mediaType;
 
+    /**
+     * SHA-256 содержимого в hex
+     */
+    @Column(name = "hash", length = 64)
+    private String hash;
 
-    public String toString() {
-        return "AdsEntity(id=" + this.getId() + ", image=" + java.util.Arrays.toString(this.getImage()) + ")";
-    }
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
 }
@@ -0,0 +1,32 @@
+package platform.model;
+
+import lombok.*;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+
+
+/**
+ * Содержимое картинки, ключ - hash из {@link Image}
+ */
+@Entity
+@Table(name = "image_data")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ImageData {
+
+    @Id
+    @Column(name = "storage_key", length = 128)
+    private String key;
+
+    @Column(name = "data")
+    @Lob
+    @Type(type = "binary")
+    private byte[] data;
+
+    public String toString() {
+        return "ImageData(key=" + this.getKey() + ", size=" + (this.getData() == null ? 0 : this.getData().length) + ")";
+    }
+}
@@ -0,0 +1,68 @@
+package platform.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Форматы картинок, которые принимаются при загрузке и отдаются с собственным Content-Type.
+ * Тип определяется по первым байтам файла, а не по заявленному клиентом: text/html или image/svg+xml
+ * с нашего домена дали бы хранимый XSS
+ */
+public enum ImageFormat {
+    JPEG("image/jpeg"), PNG("image/png"), GIF("image/gif"), WEBP("image/webp");
+
+    /**
+     * Сколько первых байт нужно для {@link #detect(byte[])}
+     */
+    public static final int HEADER_BYTES = 12;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final String mediaType;
+
+    ImageFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param header первые байты файла, может быть короче {@link #HEADER_BYTES}
+     */
+    public static Optional<ImageFormat> detect(byte[] header) {
+        if (startsWith(header, new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF})) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(header, PNG_SIGNATURE)) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(header, ascii("GIF87a")) || startsWith(header, ascii("GIF89a"))) {
+            return Optional.of(GIF);
+        }
+        if (startsWith(header, ascii("RIFF")) && header.length >= 12
+                && Arrays.equals(header, 8, 12, ascii("WEBP"), 0, 4)) {
+            return Optional.of(WEBP);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return формат с таким Content-Type или пусто, если его нельзя отдавать как картинку
+     */
+    public static Optional<ImageFormat> ofMediaType(String mediaType) {
+        return Arrays.stream(values())
+                .filter(format -> format.mediaType.equalsIgnoreCase(mediaType))
+                .findFirst();
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        return data.length >= prefix.length && Arrays.equals(data, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
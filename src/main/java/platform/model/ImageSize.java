@@ -0,0 +1,39 @@
+package platform.model;
+
+import java.util.Locale;
+
+/**
+ * Размеры картинки. Варианты вписываются в квадрат maxSide x maxSide с сохранением пропорций,
+ * ORIGINAL - загруженный файл как есть
+ */
+public enum ImageSize {
+    THUMBNAIL(160), CARD(480), FULL(1280), ORIGINAL(0);
+
+    private final int maxSide;
+
+    ImageSize(int maxSide) {
+        this.maxSide = maxSide;
+    }
+
+    public int getMaxSide() {
+        return maxSide;
+    }
+
+    /**
+     * Ключ варианта в хранилище картинок
+     *
+     * @param hash hash оригинала
+     */
+    public String key(String hash) {
+        return this == ORIGINAL ? hash : hash + "_" + name().toLowerCase(Locale.ROOT);
+    }
+
+    public static ImageSize of(String value) {
+        for (ImageSize size : values()) {
+            if (size.name().equalsIgnoreCase(value)) {
+                return size;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный размер картинки: " + value);
+    }
+}
@@ -1,9 +1,12 @@
 package platform.model;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import platform.security.dto.Role;
 
 import javax.persistence.*;
+import java.util.Locale;
 
 
 @Entity
@@ -12,9 +15,15 @@ import javax.persistence.*;
 @ToString
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "users_email_uidx", columnList = "email", unique = true))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 public class User {
 
+    /**
+     * Регион кеша второго уровня, размер задаётся в application.conf
+     */
+    public static final String CACHE_REGION = "users";
+
     @Id
     @EqualsAndHashCode.Include
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -36,7 +45,11 @@ public class User {
     @Column(name = "phone")
     private String phone;
 
-    @OneToOne
+    /**
+     * Для ссылки на аватар хватает id из внешнего ключа, сама строка Image не загружается
+     */
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "image")
     private Image image;
 
@@ -44,5 +57,21 @@ public class User {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    /**
+     * Email хранится без пробелов по краям и в нижнем регистре
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Уникальный индекс по email работает только для одинаково записанных адресов
+     */
+    @PrePersist
+    @PreUpdate
+    private void normalizeEmailBeforeSave() {
+        email = normalizeEmail(email);
+    }
+
 
 }
@@ -0,0 +1,52 @@
+package platform.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import platform.model.AdsCommentCount;
+
+
+public interface AdsCommentCountRepository extends JpaRepository<AdsCommentCount, Integer> {
+
+    /**
+     * @return 0, если счётчика для объявления нет
+     */
+    @Modifying
+    @Query("update AdsCommentCount c set c.count = c.count + :delta where c.adsId = :adsId")
+    int add(@Param("adsId") Integer adsId, @Param("delta") long delta);
+
+    @Modifying
+    @Query("delete from AdsCommentCount c where c.adsId = :adsId")
+    int deleteByAdsId(@Param("adsId") Integer adsId);
+
+    /**
+     * Вычитает комментарии автора из счётчиков объявлений, под которыми он писал; вызывать до удаления комментариев
+     */
+    @Modifying
+    @Query("update AdsCommentCount n set n.count = n.count"
+            + " - (select count(c.id) from Comment c where c.ad.id = n.adsId and c.commentAuthor.id = :authorId)"
+            + " where n.adsId in (select c.ad.id from Comment c where c.commentAuthor.id = :authorId)")
+    int subtractCommentsOfAuthor(@Param("authorId") Integer authorId);
+
+    @Modifying
+    @Query("delete from AdsCommentCount n where n.adsId in (select a.id from Ads a where a.adsAuthor.id = :authorId)")
+    int deleteByAuthorId(@Param("authorId") Integer authorId);
+
+    @Query(value = "select exists (select 1 from ads a"
+            + " where not exists (select 1 from ads_comment_count n where n.ads_id = a.id))", nativeQuery = true)
+    boolean anyMissing();
+
+    /**
+     * Заводит счётчики объявлениям, у которых их ещё нет, по текущему числу комментариев.
+     * Счётчики, которые успел завести другой узел, пропускаются
+     *
+     * @return сколько счётчиков создано
+     */
+    @Modifying
+    @Query(value = "insert into ads_comment_count (ads_id, comment_count)"
+            + " select a.id, (select count(*) from comment c where c.ads_id = a.id) from ads a"
+            + " where not exists (select 1 from ads_comment_count n where n.ads_id = a.id)"
+            + " on conflict (ads_id) do nothing", nativeQuery = true)
+    int insertMissing();
+}
@@ -1,18 +1,71 @@
 package platform.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import platform.model.Comment;
 
-import java.util.Collection;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AdsCommentRepository extends JpaRepository<Comment, Integer> {
-    void deleteCommentByAdId (int id);
+    /**
+     * Одним DELETE, без загрузки комментариев
+     */
+    @Modifying
+    @Query("delete from Comment c where c.ad.id = :adId")
+    int deleteAllByAdId(@Param("adId") int adId);
 
+    @Modifying
+    @Query("delete from Comment c where c.commentAuthor.id = :authorId")
+    int deleteAllByAuthorId(@Param("authorId") int authorId);
+
+    /**
+     * Комментарии под объявлениями автора, кто бы их ни написал
+     */
+    @Modifying
+    @Query("delete from Comment c where c.ad.id in (select a.id from Ads a where a.adsAuthor.id = :authorId)")
+    int deleteAllOnAdsOfAuthor(@Param("authorId") int authorId);
+
+    /**
+     * Автор загружается тем же запросом: он нужен для CommentDto и проверки прав
+     */
+    @EntityGraph(attributePaths = "commentAuthor")
     Optional<Comment> findByIdAndAdId(int id, int adsId);
 
-    Collection<Comment> findAllByAdId(int id);
+    @EntityGraph(attributePaths = "commentAuthor")
+    @Query("select c from Comment c where c.ad.id = :adId order by c.createdAt desc, c.id desc")
+    List<Comment> findAllByAdId(@Param("adId") int adId);
+
+    /**
+     * Первая страница комментариев, новые сверху (идёт по индексу ads_id, created_at, id)
+     */
+    @EntityGraph(attributePaths = "commentAuthor")
+    @Query("select c from Comment c where c.ad.id = :adId order by c.createdAt desc, c.id desc")
+    List<Comment> findPage(@Param("adId") int adId, Pageable pageable);
+
+    /**
+     * Seek-пагинация: комментарии старше курсора (createdAt, id) без OFFSET
+     */
+    @EntityGraph(attributePaths = "commentAuthor")
+    @Query("select c from Comment c where c.ad.id = :adId"
+            + " and (c.createdAt < :createdAt or (c.createdAt = :createdAt and c.id < :id))"
+            + " order by c.createdAt desc, c.id desc")
+    List<Comment> findPageAfter(@Param("adId") int adId, @Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") int id, Pageable pageable);
+
+    long countByAdId(int adId);
+
+    /**
+     * Только id автора - для проверки прав без загрузки комментария
+     */
+    @Query("select c.commentAuthor.id from Comment c where c.id = :id and c.ad.id = :adId")
+    Optional<Integer> findAuthorIdByIdAndAdId(@Param("id") Integer id, @Param("adId") Integer adId);
 
 }
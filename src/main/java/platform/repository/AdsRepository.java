@@ -1,13 +1,74 @@
 package platform.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import platform.dto.model_dto.AdsDto;
 import platform.model.Ads;
 
-import java.util.Collection;
+import javax.persistence.QueryHint;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface AdsRepository extends JpaRepository<Ads, Integer>, JpaSpecificationExecutor<Ads> {
-    Collection<Ads> findAllByAdsAuthorId(int id);
+
+    /**
+     * Списки объявлений выбираются сразу в {@link AdsDto}: только нужные колонки, без сущностей в контексте персистентности.
+     * adsAuthor.id и image.id берутся из внешних ключей, join не нужен
+     */
+    String ADS_DTO = "select new platform.dto.model_dto.AdsDto(a.id, a.adsAuthor.id, a.price, a.title, a.image.id) from Ads a";
+
+    @Query(ADS_DTO + " order by a.id")
+    List<AdsDto> findAllAdsDto();
+
+    /**
+     * Keyset-пагинация: объявления с id больше курсора, по возрастанию id (идёт по индексу первичного ключа)
+     */
+    @Query(ADS_DTO + " where a.id > :after order by a.id")
+    List<AdsDto> findAdsDtoPage(@Param("after") int after, Pageable pageable);
+
+    /**
+     * Все объявления курсором: драйвер Postgres тянет строки по fetch size, если запрос идёт внутри транзакции.
+     * Stream нужно закрыть
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(ADS_DTO + " order by a.id")
+    Stream<AdsDto> streamAllAdsDto();
+
+    @Query(ADS_DTO + " where a.adsAuthor.id = :authorId order by a.id")
+    List<AdsDto> findAdsDtoByAuthorId(@Param("authorId") int authorId);
+
+    /**
+     * Объявление вместе с автором одним запросом - для {@link platform.dto.FullAdDto}
+     */
+    @EntityGraph(attributePaths = "adsAuthor")
+    @Query("select a from Ads a where a.id = :id")
+    Optional<Ads> findWithAuthorById(@Param("id") Integer id);
+
+    /**
+     * Только id автора - для проверки прав без загрузки объявления
+     */
+    @Query("select a.adsAuthor.id from Ads a where a.id = :id")
+    Optional<Integer> findAuthorIdById(@Param("id") Integer id);
+
+    @Query("select a.id from Ads a where a.adsAuthor.id = :authorId")
+    List<Integer> findIdsByAuthorId(@Param("authorId") Integer authorId);
+
+    /**
+     * Комментарии, счётчики и ссылки на картинки нужно убрать до этого
+     */
+    @Modifying
+    @Query("delete from Ads a where a.adsAuthor.id = :authorId")
+    int deleteAllByAuthorId(@Param("authorId") Integer authorId);
 }
@@ -0,0 +1,25 @@
+package platform.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import platform.model.ImageData;
+
+
+public interface ImageDataRepository extends JpaRepository<ImageData, String> {
+
+    /**
+     * @return размер содержимого или null, если ключа нет
+     */
+    @Query(value = "select octet_length(data) from image_data where storage_key = :key", nativeQuery = true)
+    Integer findDataLength(@Param("key") String key);
+
+    /**
+     * Кусок содержимого без чтения всего bytea
+     *
+     * @param offset с нуля
+     */
+    @Query(value = "select substring(data from cast(:offset as int) + 1 for cast(:length as int))"
+            + " from image_data where storage_key = :key", nativeQuery = true)
+    byte[] findDataChunk(@Param("key") String key, @Param("offset") long offset, @Param("length") int length);
+}
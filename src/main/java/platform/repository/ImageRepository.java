@@ -1,8 +1,47 @@
 package platform.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import platform.model.Image;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 
 public interface ImageRepository extends JpaRepository<Image, Integer> {
+
+    boolean existsByHash(String hash);
+
+    /**
+     * Строка блокируется на чтение до конца транзакции: {@link #deleteIfOrphan(Integer)} из сборщика
+     * дождётся коммита, а уже удалённая строка не вернётся
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    Optional<Image> findFirstByHashOrderByIdAsc(String hash);
+
+    /**
+     * Картинки, на которые не ссылается ни одно объявление и ни один пользователь, созданные раньше before
+     */
+    @Query("select i from Image i where i.id > :after and (i.createdAt is null or i.createdAt < :before)"
+            + " and not exists (select a.id from Ads a where a.image = i)"
+            + " and not exists (select u.id from User u where u.image = i)"
+            + " order by i.id")
+    List<Image> findOrphans(@Param("after") int after, @Param("before") LocalDateTime before, Pageable pageable);
+
+    /**
+     * Ссылки проверяются ещё раз в момент удаления: между поиском и удалением картинку могли снова использовать
+     *
+     * @return 1, если строка удалена
+     */
+    @Modifying
+    @Query("delete from Image i where i.id = :id"
+            + " and not exists (select a.id from Ads a where a.image.id = :id)"
+            + " and not exists (select u.id from User u where u.image.id = :id)")
+    int deleteIfOrphan(@Param("id") Integer id);
 }
@@ -2,15 +2,30 @@ package platform.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import platform.model.User;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer>, JpaSpecificationExecutor<User> {
 
+    /**
+     * Точное совпадение по уникальному индексу; email передавать после {@link User#normalizeEmail(String)}.
+     * Результат кешируется и сбрасывается Hibernate при любой записи в users
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
 
-    boolean existsByEmailContains(String email);
+    boolean existsByEmail(String email);
+
+    /**
+     * Нужна открытая транзакция
+     */
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
 }
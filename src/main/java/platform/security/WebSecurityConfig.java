@@ -1,15 +1,26 @@
 package platform.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import platform.security.controller.ServiceBusyFilter;
+import platform.security.controller.TokenAuthenticationFilter;
+import platform.security.dto.Role;
+import platform.security.service.impl.BoundedPasswordEncoder;
+import platform.security.service.impl.CachingAuthenticationProvider;
+import platform.security.service.impl.TokenService;
 import platform.security.service.impl.UserDetailsServiceImpl;
 
 import static org.springframework.security.config.Customizer.withDefaults;
@@ -24,6 +35,7 @@ import static org.springframework.security.config.Customizer.withDefaults;
 public class WebSecurityConfig {
 
     private final UserDetailsServiceImpl userDetails;
+    private final TokenService tokenService;
 
     private static final String[] AUTH_WHITELIST = {
             "/swagger-resources/**",
@@ -48,15 +60,30 @@ public class WebSecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           CachingAuthenticationProvider cachingAuthenticationProvider) throws Exception {
+        if (cachingAuthenticationProvider.isEnabled()) {
+            http.authenticationManager(new ProviderManager(cachingAuthenticationProvider));
+        }
         http.csrf().disable().authorizeHttpRequests(auth -> auth.mvcMatchers(AUTH_WHITELIST).permitAll()
+                        .mvcMatchers("/actuator/**").hasAuthority(Role.ADMIN.getAuthority())
                         .mvcMatchers("/ads/**", "/users/**").authenticated())
-                .cors().and().httpBasic(withDefaults());
+                .cors().and().httpBasic(withDefaults())
+                //токен проверяется по подписи, базу и BCrypt на каждый запрос не трогаем
+                .addFilterBefore(new ServiceBusyFilter(), BasicAuthenticationFilter.class)
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
+                .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
         return http.build();
     }
 
+    /**
+     * BCrypt не на потоках Tomcat, а на своём ограниченном пуле
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.threads:4}") int threads,
+                                           @Value("${security.bcrypt.queue-capacity:16}") int queueCapacity,
+                                           @Value("${security.bcrypt.timeout-ms:1000}") long timeoutMillis,
+                                           MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, timeoutMillis, meterRegistry);
     }
 }
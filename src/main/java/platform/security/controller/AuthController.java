@@ -16,8 +16,16 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import platform.dto.LoginReqDto;
 import platform.dto.RegReqDto;
+import platform.model.User;
 import platform.security.dto.Role;
+import platform.security.dto.TokenResp;
 import platform.security.service.AuthService;
+import platform.security.service.impl.ClientIpResolver;
+import platform.security.service.impl.RateLimiter;
+
+import javax.servlet.http.HttpServletRequest;
+
+import java.util.Optional;
 
 import static platform.security.dto.Role.USER;
 
@@ -28,17 +36,25 @@ import static platform.security.dto.Role.USER;
 @RequiredArgsConstructor
 public class AuthController {
     private final AuthService authService;
+    private final RateLimiter rateLimiter;
+    private final ClientIpResolver clientIpResolver;
 
     @Operation(summary = "Авторизация пользователя", operationId = "login",
-            responses = {@ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = MediaType.ALL_VALUE, schema = @Schema(implementation = Object.class))),
+            responses = {@ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = TokenResp.class))),
                     @ApiResponse(responseCode = "404",
                             description = "Not Found"),
                     @ApiResponse(responseCode = "401", description = "Unauthorized", content = {}),
-                    @ApiResponse(responseCode = "403", description = "Forbidden", content = {})}, tags = "Authorization")
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = {}),
+                    @ApiResponse(responseCode = "429", description = "Too Many Requests", content = {})}, tags = "Authorization")
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginReqDto req) throws Exception {
-        if (authService.login(req.getUsername(), req.getPassword())) {
-            return ResponseEntity.ok().build();
+    public ResponseEntity<?> login(@RequestBody LoginReqDto req, HttpServletRequest request) throws Exception {
+        //до BCrypt: лимит и на адрес, и на учётную запись, чтобы не помогала смена IP
+        rateLimiter.acquire(RateLimiter.LOGIN_IP, clientIpResolver.resolve(request));
+        //ключ как в базе: " User@Example.com" и "user@example.com" - один и тот же аккаунт и одна корзина
+        rateLimiter.acquire(RateLimiter.LOGIN_EMAIL, User.normalizeEmail(req.getUsername()));
+        Optional<TokenResp> token = authService.createToken(req.getUsername(), req.getPassword());
+        if (token.isPresent()) {
+            return ResponseEntity.ok(token.get());
         } else {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
@@ -50,9 +66,11 @@ public class AuthController {
                     @ApiResponse(responseCode = "201",
                             description = "Created", content = {}),
                     @ApiResponse(responseCode = "401", description = "Unauthorized", content = {}),
-                    @ApiResponse(responseCode = "403", description = "Forbidden", content = {})}, tags = "Authorization")
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = {}),
+                    @ApiResponse(responseCode = "429", description = "Too Many Requests", content = {})}, tags = "Authorization")
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegReqDto req) {
+    public ResponseEntity<?> register(@RequestBody RegReqDto req, HttpServletRequest request) {
+        rateLimiter.acquire(RateLimiter.REGISTER_IP, clientIpResolver.resolve(request));
         Role role = req.getRole() == null ? USER : req.getRole();
         if (authService.register(req, role)) {
             return ResponseEntity.ok().build();
@@ -0,0 +1,34 @@
+package platform.security.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import platform.exception.ServiceBusyException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Перегрузку внутри цепочки безопасности (например, BCrypt для httpBasic) отдаём как 503 с Retry-After, а не 500.
+ * В контроллерах то же самое делает обработка ResponseStatusException
+ */
+public class ServiceBusyFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } catch (ServiceBusyException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            response.sendError(e.getRawStatusCode(), e.getReason());
+        }
+    }
+}
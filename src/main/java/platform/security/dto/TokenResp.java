@@ -0,0 +1,20 @@
+package platform.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ответ на успешный логин: токен передаётся дальше в заголовке Authorization: Bearer
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenResp {
+    private String accessToken;
+    private String tokenType;
+    /**
+     * Сколько секунд токен действителен
+     */
+    private long expiresIn;
+}
@@ -3,10 +3,20 @@ package platform.security.service;
 
 import platform.dto.RegReqDto;
 import platform.security.dto.Role;
+import platform.security.dto.TokenResp;
+
+import java.util.Optional;
 
 public interface AuthService {
 
     boolean login(String userName, String password) throws Exception;
 
+    /**
+     * Проверяет пароль и выдаёт токен доступа
+     *
+     * @return токен или пусто, если пароль не подошёл
+     */
+    Optional<TokenResp> createToken(String userName, String password) throws Exception;
+
     boolean register(RegReqDto regReqDto, Role role);
 }
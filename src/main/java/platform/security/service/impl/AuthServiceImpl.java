@@ -3,13 +3,16 @@ package platform.security.service.impl;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import platform.dto.RegReqDto;
+import platform.exception.RegisterException;
 import platform.mapper.UserMapper;
 import platform.model.User;
 import platform.repository.UserRepository;
 import platform.security.dto.Role;
+import platform.security.dto.TokenResp;
 import platform.security.service.AuthService;
 import platform.service.UserService;
 
@@ -25,16 +28,28 @@ public class AuthServiceImpl implements AuthService {
     private final PasswordEncoder encoder;
     private final UserMapper userMapper;
     private final UserService userService;
+    private final TokenService tokenService;
 
 
     @Override
     public boolean login(String userName, String password) throws Exception {
         logger.info("Логинимся");
-        Optional<User> user = userRepository.findByEmail(userName);
+        return checkPassword(userName, password).isPresent();
+    }
+
+    @Override
+    public Optional<TokenResp> createToken(String userName, String password) throws Exception {
+        logger.info("Выдаём токен");
+        return checkPassword(userName, password)
+                .map(user -> new TokenResp(tokenService.issue(user), "Bearer", tokenService.getTtlSeconds()));
+    }
+
+    private Optional<User> checkPassword(String userName, String password) throws Exception {
+        Optional<User> user = userRepository.findByEmail(User.normalizeEmail(userName));
         if (user.isEmpty()) {
             throw new Exception("Пользователь с таким именем не зарегистрирован");
         }
-        return encoder.matches(password, user.get().getPassword());
+        return user.filter(u -> encoder.matches(password, u.getPassword()));
     }
 
     @Override
@@ -42,7 +57,13 @@ public class AuthServiceImpl implements AuthService {
 
         logger.info("Регистрируемся");
         User user = userMapper.toEntity(regReqDto);
-        userService.addUser(user);
+        try {
+            userService.addUser(user);
+        } catch (RegisterException | DataIntegrityViolationException e) {
+            //второе - параллельная регистрация того же email, её остановил уникальный индекс
+            logger.info("Email {} уже зарегистрирован", user.getEmail());
+            return false;
+        }
         return true;
 
     }
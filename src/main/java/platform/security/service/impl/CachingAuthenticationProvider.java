@@ -0,0 +1,142 @@
+package platform.security.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import platform.model.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Кеш недавно проверенных логинов httpBasic перед BCrypt (включается security.basic-cache.enabled).
+ * Хранится не пароль, а HMAC от email и пароля на случайном ключе процесса; при совпадении не нужны ни findByEmail, ни BCrypt.
+ * Запись живёт security.basic-cache.ttl-seconds и удаляется сразу при смене пароля, роли или данных пользователя
+ */
+@Component
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final DaoAuthenticationProvider delegate = new DaoAuthenticationProvider();
+    private final Cache<String, VerifiedLogin> cache;
+    private final Mac prototype;
+    private final boolean enabled;
+
+    public CachingAuthenticationProvider(UserDetailsServiceImpl userDetailsService,
+                                         PasswordEncoder passwordEncoder,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${security.basic-cache.enabled:false}") boolean enabled,
+                                         @Value("${security.basic-cache.ttl-seconds:60}") long ttlSeconds,
+                                         @Value("${security.basic-cache.size:10000}") long size) {
+        delegate.setUserDetailsService(userDetailsService);
+        delegate.setUserDetailsPasswordService(userDetailsService);
+        delegate.setPasswordEncoder(passwordEncoder);
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(size)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.basic");
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        try {
+            this.prototype = Mac.getInstance("HmacSHA256");
+            this.prototype.init(new SecretKeySpec(key, "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!enabled) {
+            return delegate.authenticate(authentication);
+        }
+        String username = User.normalizeEmail(authentication.getName());
+        String password = authentication.getCredentials() == null ? "" : authentication.getCredentials().toString();
+        byte[] digest = digest(username, password);
+        VerifiedLogin verified = cache.getIfPresent(username);
+        if (verified != null && MessageDigest.isEqual(verified.digest(), digest)) {
+            return authenticated(verified.userDetails());
+        }
+        Authentication result = delegate.authenticate(authentication);
+        if (result.getPrincipal() instanceof UserDetails userDetails) {
+            cache.put(username, new VerifiedLogin(digest, userDetails));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    /**
+     * Забыть проверенный логин, например после смены пароля.
+     * Внутри транзакции запись удаляется ещё раз после коммита: до него параллельный вход со старым паролем
+     * успел бы снова положить её в кеш на весь TTL
+     *
+     * @param username email пользователя
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        String key = User.normalizeEmail(username);
+        cache.invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Забыть все проверенные логины, когда неизвестно, чьи данные поменялись
+     */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    private static Authentication authenticated(UserDetails userDetails) {
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
+    private byte[] digest(String username, String password) {
+        try {
+            Mac mac = (Mac) prototype.clone();
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedLogin(byte[] digest, UserDetails userDetails) {
+    }
+}
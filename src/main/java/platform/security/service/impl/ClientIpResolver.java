@@ -0,0 +1,65 @@
+package platform.security.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Адрес клиента за балансировщиком для лимитов {@link RateLimiter}.
+ * X-Forwarded-For учитывается, только если запрос пришёл от доверенного прокси (rate-limit.trusted-proxies):
+ * цепочка читается справа, клиент - первый адрес не из доверенных. Иначе заголовок мог подставить сам клиент
+ */
+@Component
+public class ClientIpResolver {
+
+    static final String X_FORWARDED_FOR = "X-Forwarded-For";
+    /**
+     * Только литералы IPv4/IPv6: для остального IpAddressMatcher полез бы в DNS
+     */
+    private static final Pattern IP_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}|[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public ClientIpResolver(@Value("${rate-limit.trusted-proxies:}") List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        String forwarded = request.getHeader(X_FORWARDED_FOR);
+        if (forwarded == null || !isTrusted(address)) {
+            return address;
+        }
+        List<String> chain = Arrays.stream(forwarded.split(","))
+                .map(String::trim)
+                .filter(hop -> !hop.isEmpty())
+                .toList();
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            address = chain.get(i);
+            if (!isTrusted(address)) {
+                return address;
+            }
+        }
+        return address;
+    }
+
+    private boolean isTrusted(String address) {
+        if (!IP_LITERAL.matcher(address).matches()) {
+            return false;
+        }
+        try {
+            return trustedProxies.stream().anyMatch(proxy -> proxy.matches(address));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
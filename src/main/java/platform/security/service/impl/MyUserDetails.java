@@ -2,15 +2,31 @@ package platform.security.service.impl;
 
 import lombok.Getter;
 import platform.model.User;
+import platform.security.dto.Role;
 
 import java.util.List;
 
 @Getter
 public class MyUserDetails extends org.springframework.security.core.userdetails.User {
     private final Integer id;
+    private final Role role;
 
     public MyUserDetails(User user) {
         super(user.getEmail(), user.getPassword(), List.of(user.getRole()));
         this.id = user.getId();
+        this.role = user.getRole();
+    }
+
+    /**
+     * Пользователь из токена доступа, пароль не нужен
+     */
+    public MyUserDetails(Integer id, String email, Role role) {
+        super(email, "", List.of(role));
+        this.id = id;
+        this.role = role;
+    }
+
+    public boolean isAdmin() {
+        return role == Role.ADMIN;
     }
 }
@@ -0,0 +1,49 @@
+package platform.security.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import platform.repository.AdsCommentRepository;
+import platform.repository.AdsRepository;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Проверки прав для @PreAuthorize: @permissionService.canEditAds(#id).
+ * Админу ничего не читаем, владельцу - только id автора одним скалярным запросом, без загрузки сущностей.
+ * Если объявления или комментария нет, пропускаем: сервис сам ответит 404.
+ * Это единственная проверка: методы AdService права повторно не проверяют, вызывать их только из защищённых эндпоинтов
+ */
+@Service
+@RequiredArgsConstructor
+public class PermissionService {
+
+    private final AdsRepository adsRepository;
+    private final AdsCommentRepository commentRepository;
+
+    public boolean canEditAds(Integer adId) {
+        return principal()
+                .map(user -> user.isAdmin() || isOwner(user, adsRepository.findAuthorIdById(adId)))
+                .orElse(false);
+    }
+
+    public boolean canEditComment(Integer adId, Integer commentId) {
+        return principal()
+                .map(user -> user.isAdmin() || isOwner(user, commentRepository.findAuthorIdByIdAndAdId(commentId, adId)))
+                .orElse(false);
+    }
+
+    private static boolean isOwner(MyUserDetails user, Optional<Integer> authorId) {
+        return authorId.map(id -> Objects.equals(id, user.getId())).orElse(true);
+    }
+
+    private static Optional<MyUserDetails> principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof MyUserDetails userDetails) {
+            return Optional.of(userDetails);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,108 @@
+package platform.security.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import platform.exception.TooManyRequestsException;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничение частоты /login и /register по IP и по email.
+ * Каждое ведро - один AtomicLong с моментом, когда ведро снова станет полным (GCRA - тот же token bucket
+ * без отдельного счётчика токенов), обновляется CAS без блокировок и без выделения памяти на запрос.
+ * Бюджеты задаются в application.properties.
+ * Ведра лежат в кеше Caffeine: ведро, к которому не обращались дольше burst, уже полное и просто истекает.
+ * Вытеснения по размеру нет, чтобы перебор случайных email или IP не сбрасывал ведра атакуемых ключей:
+ * когда ключей rate-limit.max-keys, все новые ключи делят одно общее ведро, пока старые не истекут
+ */
+@Component
+public class RateLimiter {
+
+    public static final String LOGIN_IP = "login.ip";
+    public static final String LOGIN_EMAIL = "login.email";
+    public static final String REGISTER_IP = "register.ip";
+
+    private final Map<String, Budget> budgets;
+
+    public RateLimiter(@Value("${rate-limit.login.ip.capacity:20}") int loginIpCapacity,
+                       @Value("${rate-limit.login.ip.per-minute:10}") int loginIpPerMinute,
+                       @Value("${rate-limit.login.email.capacity:5}") int loginEmailCapacity,
+                       @Value("${rate-limit.login.email.per-minute:5}") int loginEmailPerMinute,
+                       @Value("${rate-limit.register.ip.capacity:5}") int registerIpCapacity,
+                       @Value("${rate-limit.register.ip.per-minute:2}") int registerIpPerMinute,
+                       @Value("${rate-limit.max-keys:100000}") int maxKeys) {
+        this.budgets = Map.of(
+                LOGIN_IP, new Budget(loginIpCapacity, loginIpPerMinute, maxKeys),
+                LOGIN_EMAIL, new Budget(loginEmailCapacity, loginEmailPerMinute, maxKeys),
+                REGISTER_IP, new Budget(registerIpCapacity, registerIpPerMinute, maxKeys));
+    }
+
+    /**
+     * Списывает один токен
+     *
+     * @param budget {@link #LOGIN_IP}, {@link #LOGIN_EMAIL} или {@link #REGISTER_IP}
+     * @param key    IP или email; пустой ключ не ограничивается
+     * @throws TooManyRequestsException если токенов нет
+     */
+    public void acquire(String budget, String key) {
+        if (key == null || key.isBlank()) {
+            return;
+        }
+        Budget limits = budgets.get(budget);
+        long waitNanos = limits.tryAcquire(key.toLowerCase(Locale.ROOT), System.nanoTime());
+        if (waitNanos > 0) {
+            throw new TooManyRequestsException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+        }
+    }
+
+    private static final class Budget {
+
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final long maxKeys;
+        private final Cache<String, AtomicLong> buckets;
+        private final AtomicLong overflow = new AtomicLong(System.nanoTime());
+
+        private Budget(int capacity, int perMinute, int maxKeys) {
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.burstNanos = intervalNanos * Math.max(1, capacity);
+            this.maxKeys = maxKeys;
+            this.buckets = Caffeine.newBuilder()
+                    .expireAfterAccess(burstNanos, TimeUnit.NANOSECONDS)
+                    .build();
+        }
+
+        /**
+         * @return 0, если токен выдан, иначе сколько наносекунд ждать
+         */
+        private long tryAcquire(String key, long now) {
+            //tat - момент, когда ведро снова будет полным
+            AtomicLong tat = buckets.getIfPresent(key);
+            if (tat == null) {
+                tat = buckets.estimatedSize() < maxKeys ? buckets.get(key, k -> new AtomicLong(now)) : overflow(key, now);
+            }
+            while (true) {
+                long current = tat.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long excess = next - now - burstNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        private AtomicLong overflow(String key, long now) {
+            //истёкшие ведра снимаются с головы очереди доступа, без обхода всего кеша
+            buckets.cleanUp();
+            return buckets.estimatedSize() < maxKeys ? buckets.get(key, k -> new AtomicLong(now)) : overflow;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package platform.security.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import platform.model.User;
+import platform.security.dto.Role;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Короткоживущие токены доступа, подписанные HMAC-SHA256.
+ * Токен - base64url(id|role|exp|email).base64url(подпись); проверка - только подпись и срок, без базы и BCrypt.
+ * security.token.secret общий для всех узлов и не короче 32 байт, иначе приложение не стартует.
+ * Случайный ключ на время жизни процесса - только для локального запуска (security.token.allow-generated-secret, профиль dev)
+ */
+@Service
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Logger logger = LoggerFactory.getLogger(TokenService.class);
+    private final Mac prototype;
+    private final long ttlSeconds;
+
+    public TokenService(@Value("${security.token.secret:}") String secret,
+                        @Value("${security.token.ttl-seconds:900}") long ttlSeconds,
+                        @Value("${security.token.allow-generated-secret:false}") boolean allowGeneratedSecret) {
+        this.ttlSeconds = ttlSeconds;
+        byte[] key;
+        if (secret == null || secret.isBlank()) {
+            if (!allowGeneratedSecret) {
+                //токен одного узла не прошёл бы проверку на остальных и после перезапуска
+                throw new IllegalStateException("Не задан security.token.secret (TOKEN_SECRET)");
+            }
+            logger.warn("security.token.secret не задан, токены будут действительны только на этом узле до перезапуска");
+            key = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+            if (key.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("security.token.secret короче " + MIN_SECRET_BYTES + " байт");
+            }
+        }
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(key, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public String issue(User user) {
+        long expiresAt = Instant.now().getEpochSecond() + ttlSeconds;
+        Role role = user.getRole() == null ? Role.USER : user.getRole();
+        String payload = user.getId() + "|" + role.name() + "|" + expiresAt + "|" + user.getEmail();
+        String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encodedPayload + "." + ENCODER.encodeToString(sign(encodedPayload));
+    }
+
+    /**
+     * @return пользователь из токена или пусто, если подпись не сходится, токен просрочен или испорчен
+     */
+    public Optional<MyUserDetails> verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        String encodedPayload = token.substring(0, dot);
+        try {
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(encodedPayload))) {
+                return Optional.empty();
+            }
+            String[] parts = new String(DECODER.decode(encodedPayload), StandardCharsets.UTF_8).split("\\|", 4);
+            if (parts.length != 4 || Long.parseLong(parts[2]) < Instant.now().getEpochSecond()) {
+                return Optional.empty();
+            }
+            return Optional.of(new MyUserDetails(Integer.valueOf(parts[0]), parts[3], Role.valueOf(parts[1])));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String encodedPayload) {
+        try {
+            //Mac не потокобезопасен, копия дешевле повторной инициализации ключом
+            Mac mac = (Mac) prototype.clone();
+            return mac.doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -29,7 +29,7 @@ public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPa
     }
 
     private User getUserByName(String username) {
-        return userRepository.findByEmail(username)
+        return userRepository.findByEmail(User.normalizeEmail(username))
                 .orElseThrow(() -> new UsernameNotFoundException("Пользователь по email не найден"));
     }
 
@@ -0,0 +1,16 @@
+package platform.service;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public interface AdExportService {
+
+    /**
+     * Выгрузка всех объявлений без сбора в память: строки идут из курсора БД сразу в ответ.
+     * NDJSON - по {@link platform.dto.model_dto.AdsDto} в строке; CSV - заголовок pk,author,price,title,image
+     *
+     * @param format {@link AdImportService#NDJSON} или {@link AdImportService#CSV}
+     * @return тело ответа, которое пишется в отдельном потоке
+     */
+    StreamingResponseBody exportAds(MediaType format);
+}
@@ -0,0 +1,25 @@
+package platform.service;
+
+import org.springframework.http.MediaType;
+import platform.dto.ImportResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface AdImportService {
+
+    MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    /**
+     * Импорт объявлений пользователя из потока, не читая его целиком в память.
+     * NDJSON - по объекту {"title", "description", "price"} в строке;
+     * CSV - первая строка заголовок с колонками title, description, price, значения в одной строке
+     *
+     * @param in     тело запроса
+     * @param format {@link #NDJSON} или {@link #CSV}
+     * @param email  автор объявлений
+     * @return {@link ImportResultDto}
+     */
+    ImportResultDto importAds(InputStream in, MediaType format, String email) throws IOException;
+}
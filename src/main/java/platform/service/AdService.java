@@ -3,15 +3,28 @@ package platform.service;
 import lombok.SneakyThrows;
 import org.springframework.web.multipart.MultipartFile;
 import platform.dto.AdCreateDto;
+import platform.dto.CommentCursor;
 import platform.dto.FullAdDto;
+import platform.dto.model_dto.AdsDto;
 import platform.dto.model_dto.CommentDto;
 import platform.model.Ads;
 import platform.model.Comment;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface AdService {
-    Collection<Ads> getAllAds();
+    List<AdsDto> getAllAds();
+
+    /**
+     * Страница объявлений по курсору (keyset-пагинация по id)
+     *
+     * @param after id последнего объявления предыдущей страницы, null - первая страница
+     * @param limit размер страницы
+     * @return List<AdsDto>
+     * </AdsDto>
+     */
+    List<AdsDto> getAdsPage(Integer after, int limit);
 
     /**
      * Обновляем картинку по id Объявления
@@ -40,10 +53,10 @@ public interface AdService {
      * Показывает объявления авторизованного польхователя
      *
      * @param Email
-     * @return Collection<Ads>
-     * </Ads>
+     * @return List<AdsDto>
+     * </AdsDto>
      */
-    Collection<Ads> getMyAds(String Email);
+    List<AdsDto> getMyAds(String Email);
 
     /**
      * @param id
@@ -61,6 +74,21 @@ public interface AdService {
      */
     Collection<Comment> getComments(int adPk);
 
+    /**
+     * Страница комментариев, новые сверху
+     *
+     * @param after курсор последнего комментария предыдущей страницы, null - первая страница
+     * @param limit размер страницы
+     * @return List<Comment>
+     * </Comment>
+     */
+    List<Comment> getCommentsPage(int adPk, CommentCursor after, int limit);
+
+    /**
+     * Сколько всего комментариев у объявления, по счётчику без COUNT(*)
+     */
+    long getCommentCount(int adPk);
+
     /**
      * Получить комментарий по id
      *
@@ -89,6 +117,15 @@ public interface AdService {
 
     Ads deleteAdsById(int adId);
 
+    /**
+     * Модерация: удалить все объявления пользователя и все его комментарии
+     * фиксированным числом запросов, независимо от их количества
+     *
+     * @param userId
+     * @return сколько объявлений удалено
+     */
+    int deleteUserContent(int userId);
+
     /**
      * Удалить коментарий по id
      *
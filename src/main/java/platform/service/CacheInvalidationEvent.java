@@ -0,0 +1,55 @@
+package platform.service;
+
+import platform.model.Image;
+
+/**
+ * Публикуется при изменении данных, которые другие узлы держат в своих кешах.
+ * После коммита рассылается им через {@link platform.service.impl.CacheInvalidationBus}
+ *
+ * @param key id сущности или email
+ */
+public record CacheInvalidationEvent(Type type, String key) {
+
+    public enum Type {
+        /**
+         * Объявление: карточка FullAdDto и строка Ads в кеше второго уровня
+         */
+        ADS,
+        /**
+         * Пользователь: строка User в кеше второго уровня и кеш запросов по email
+         */
+        USER,
+        /**
+         * Проверенный логин httpBasic по email
+         */
+        LOGIN,
+        /**
+         * Новый email для фильтра Блума
+         */
+        EMAIL,
+        /**
+         * Удалённая картинка: содержимое в ImageCache, строка Image в кеше второго уровня; ключ "id:hash"
+         */
+        IMAGE
+    }
+
+    public static CacheInvalidationEvent ads(Integer id) {
+        return new CacheInvalidationEvent(Type.ADS, String.valueOf(id));
+    }
+
+    public static CacheInvalidationEvent user(Integer id) {
+        return new CacheInvalidationEvent(Type.USER, String.valueOf(id));
+    }
+
+    public static CacheInvalidationEvent login(String email) {
+        return new CacheInvalidationEvent(Type.LOGIN, email);
+    }
+
+    public static CacheInvalidationEvent email(String email) {
+        return new CacheInvalidationEvent(Type.EMAIL, email);
+    }
+
+    public static CacheInvalidationEvent image(Image image) {
+        return new CacheInvalidationEvent(Type.IMAGE, image.getId() + ":" + (image.getHash() == null ? "" : image.getHash()));
+    }
+}
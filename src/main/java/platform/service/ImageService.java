@@ -1,22 +1,56 @@
 package platform.service;
 
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 import platform.model.Image;
+import platform.model.ImageSize;
 
 import java.io.IOException;
 
 public interface ImageService {
 
     /**
+     * Если такое содержимое уже загружали, возвращает ту же картинку.
+     * Картинку, на которую больше никто не ссылается, вместе с содержимым удалит
+     * {@link platform.service.impl.OrphanImageCollector}
+     *
      * @param multipartFile
      * @return {@link Image}
      */
     Image upload(MultipartFile multipartFile) throws IOException;
 
     /**
+     * Только метаданные картинки, без содержимого
      *
      * @param id (id_image)
      * @return {@link Image}
      */
     Image getImageById(Integer id);
+
+    /**
+     * Какой размер сейчас можно отдать: запрошенный вариант, если он уже сгенерирован, иначе оригинал.
+     * Недостающие варианты ставятся в очередь на генерацию
+     *
+     * @param image
+     * @param size запрошенный размер
+     * @return {@link ImageSize}
+     */
+    ImageSize resolveSize(Image image, ImageSize size);
+
+    /**
+     * Содержимое картинки из {@link platform.service.ImageStorage}
+     *
+     * @param image метаданные из {@link #getImageById(Integer)}
+     * @param size  размер из {@link #resolveSize(Image, ImageSize)}
+     * @return {@link Resource}
+     */
+    Resource getImageResource(Image image, ImageSize size);
+
+    /**
+     * Доубирает уже удалённую строку картинки: кеш и содержимое в хранилище, если оно больше не используется.
+     * Вызывать только после коммита удаления
+     *
+     * @param image
+     */
+    void purge(Image image);
 }
@@ -0,0 +1,40 @@
+package platform.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Хранилище содержимого картинок. Ключ - hash содержимого, поэтому одинаковые файлы хранятся один раз.
+ * Реализация выбирается свойством image.storage (database | filesystem)
+ */
+public interface ImageStorage {
+
+    /**
+     * Сохраняет содержимое под ключом; если ключ уже есть - ничего не делает
+     *
+     * @param key
+     * @param data
+     */
+    void store(String key, byte[] data) throws IOException;
+
+    /**
+     * Сохраняет поток под ключом SHA-256 его содержимого. Hash считается по ходу записи,
+     * поэтому содержимое не нужно заранее целиком читать в память
+     *
+     * @param data поток; закрывает вызывающий
+     * @return ключ
+     */
+    String store(InputStream data) throws IOException;
+
+    /**
+     * @param key
+     * @return {@link Resource} с содержимым
+     */
+    Resource load(String key);
+
+    boolean exists(String key);
+
+    void delete(String key);
+}
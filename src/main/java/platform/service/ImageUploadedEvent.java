@@ -0,0 +1,9 @@
+package platform.service;
+
+import platform.model.Image;
+
+/**
+ * Публикуется после сохранения новой картинки
+ */
+public record ImageUploadedEvent(Image image) {
+}
@@ -0,0 +1,19 @@
+package platform.service;
+
+import platform.model.Image;
+
+public interface ImageVariantService {
+
+    /**
+     * @return false, если для картинки уже выяснилось, что вариантов не будет - тогда всегда отдаётся оригинал
+     */
+    boolean canCreateVariants(Image image);
+
+    /**
+     * Ставит в очередь генерацию уменьшенных вариантов картинки.
+     * Если очередь заполнена или варианты уже генерируются - ничего не делает
+     *
+     * @param image
+     */
+    void schedule(Image image);
+}
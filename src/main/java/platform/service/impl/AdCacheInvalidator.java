@@ -0,0 +1,41 @@
+package platform.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import platform.config.CacheConfig;
+import platform.repository.AdsRepository;
+import platform.service.CacheInvalidationEvent;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Сброс закешированных {@link platform.dto.FullAdDto}, когда меняются данные автора, которые в них скопированы.
+ * Другие узлы получают сброс через {@link CacheInvalidationBus}
+ */
+@Component
+@RequiredArgsConstructor
+public class AdCacheInvalidator {
+
+    private final AdsRepository adsRepository;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void evictAuthor(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(adsRepository.findIdsByAuthorId(userId));
+    }
+
+    public void evict(Collection<Integer> adIds) {
+        Cache cache = Objects.requireNonNull(cacheManager.getCache(CacheConfig.FULL_ADS));
+        for (Integer adId : adIds) {
+            cache.evict(adId);
+            eventPublisher.publishEvent(CacheInvalidationEvent.ads(adId));
+        }
+    }
+}
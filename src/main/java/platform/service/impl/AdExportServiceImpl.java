@@ -0,0 +1,127 @@
+package platform.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import platform.dto.model_dto.AdsDto;
+import platform.exception.ServiceBusyException;
+import platform.repository.AdsRepository;
+import platform.service.AdExportService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+import static platform.service.AdImportService.CSV;
+import static platform.service.AdImportService.NDJSON;
+
+/**
+ * Выгрузка читает {@link AdsRepository#streamAllAdsDto()} в read-only транзакции и пишет каждую строку сразу в ответ.
+ * Запись в ответ блокируется, пока медленный клиент не заберёт данные, и курсор в это время не читается дальше,
+ * поэтому память не растёт. Зато соединение с БД занято всю выгрузку - одновременных выгрузок не больше ads.export.max-concurrent
+ */
+@Service
+public class AdExportServiceImpl implements AdExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long RETRY_AFTER_SECONDS = 60;
+
+    private final Logger logger = LoggerFactory.getLogger(AdExportServiceImpl.class);
+    private final AdsRepository adsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Semaphore permits;
+
+    public AdExportServiceImpl(AdsRepository adsRepository,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               @Value("${ads.export.max-concurrent:2}") int maxConcurrent) {
+        this.adsRepository = adsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    @Override
+    public StreamingResponseBody exportAds(MediaType format) {
+        logger.info("Метод выгрузки всех объявлений");
+        boolean csv = CSV.isCompatibleWith(format);
+        if (!csv && !NDJSON.isCompatibleWith(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Поддерживаются " + NDJSON + " и " + CSV);
+        }
+        //разрешение берётся уже в потоке выгрузки: если тело так и не запустят (таймаут, отказ executor), оно не потеряется
+        return out -> {
+            if (!permits.tryAcquire()) {
+                throw new ServiceBusyException("Слишком много выгрузок одновременно", RETRY_AFTER_SECONDS);
+            }
+            try {
+                write(out, csv);
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    private void write(OutputStream out, boolean csv) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try {
+            long rows = transactionTemplate.execute(status -> {
+                try (Stream<AdsDto> ads = adsRepository.streamAllAdsDto()) {
+                    long count = 0;
+                    if (csv) {
+                        writer.write("pk,author,price,title,image\n");
+                    }
+                    for (Iterator<AdsDto> it = ads.iterator(); it.hasNext(); count++) {
+                        AdsDto dto = it.next();
+                        writer.write(csv ? csvLine(dto) : objectMapper.writeValueAsString(dto));
+                        writer.write('\n');
+                    }
+                    return count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            logger.info("Выгружено объявлений: {}", rows);
+        } catch (UncheckedIOException e) {
+            //чаще всего клиент закрыл соединение
+            logger.warn("Выгрузка объявлений прервана: {}", e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+
+    private static String csvLine(AdsDto dto) {
+        return String.join(",", value(dto.getPk()), value(dto.getAuthor()), value(dto.getPrice()),
+                quote(dto.getTitle()), quote(dto.getImage()));
+    }
+
+    private static String value(Integer value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
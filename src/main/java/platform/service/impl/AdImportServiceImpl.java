@@ -0,0 +1,328 @@
+package platform.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import platform.dto.AdCreateDto;
+import platform.dto.ImportResultDto;
+import platform.exception.ServiceBusyException;
+import platform.repository.UserRepository;
+import platform.service.AdImportService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Импорт идёт построчно и пишется пачками по ads.import.batch-size: на пачку один запрос за id
+ * из последовательности ads.id и по одному batch insert в ads и ads_comment_count.
+ * Через Hibernate так не получится: IDENTITY отключает JDBC batching.
+ * Ошибочная строка пропускается с сообщением в ответе, остальные сохраняются.
+ * Строка длиннее ads.import.max-line-chars в память целиком не читается: хвост до перевода строки пропускается,
+ * а у одного пользователя на узле одновременно идёт только один импорт
+ */
+@Service
+public class AdImportServiceImpl implements AdImportService {
+
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final long RETRY_AFTER_SECONDS = 60;
+    private static final String ALLOCATE_IDS =
+            "select nextval(pg_get_serial_sequence('ads', 'id')) from generate_series(1, ?)";
+    private static final String INSERT_ADS =
+            "insert into ads (id, title, description, price, user_id) values (?, ?, ?, ?, ?)";
+    private static final String INSERT_COUNTERS =
+            "insert into ads_comment_count (ads_id, comment_count) values (?, 0)";
+
+    private final Logger logger = LoggerFactory.getLogger(AdImportServiceImpl.class);
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long maxRows;
+    private final int maxErrors;
+    private final int maxLineChars;
+    private final Set<Integer> running = ConcurrentHashMap.newKeySet();
+
+    public AdImportServiceImpl(UserRepository userRepository,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               ObjectMapper objectMapper,
+                               @Value("${ads.import.batch-size:500}") int batchSize,
+                               @Value("${ads.import.max-rows:100000}") long maxRows,
+                               @Value("${ads.import.max-errors:1000}") int maxErrors,
+                               @Value("${ads.import.max-line-chars:8192}") int maxLineChars) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRows = maxRows;
+        this.maxErrors = maxErrors;
+        this.maxLineChars = maxLineChars;
+    }
+
+    @Override
+    public ImportResultDto importAds(InputStream in, MediaType format, String email) throws IOException {
+        logger.info("Метод массового импорта объявлений");
+        boolean csv = CSV.isCompatibleWith(format);
+        if (!csv && !NDJSON.isCompatibleWith(format)) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Поддерживаются " + NDJSON + " и " + CSV);
+        }
+        Integer authorId = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь не найден"))
+                .getId();
+        if (!running.add(authorId)) {
+            throw new ServiceBusyException("Предыдущий импорт ещё не закончен", RETRY_AFTER_SECONDS);
+        }
+        try {
+            ImportResultDto result = importRows(new LineReader(in, maxLineChars), csv, authorId);
+            logger.info("Импортировано объявлений: {}, ошибок: {}", result.getImported(), result.getFailed());
+            return result;
+        } finally {
+            running.remove(authorId);
+        }
+    }
+
+    private ImportResultDto importRows(LineReader reader, boolean csv, Integer authorId) throws IOException {
+        ImportResultDto result = new ImportResultDto();
+        List<Row> batch = new ArrayList<>(batchSize);
+        Map<String, Integer> columns = null;
+        long lineNumber = 0;
+        long rows = 0;
+        String line;
+        while ((line = reader.next()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            if (line.isBlank() && !reader.isTruncated()) {
+                continue;
+            }
+            if (csv && columns == null) {
+                if (reader.isTruncated()) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Заголовок CSV длиннее " + maxLineChars + " символов");
+                }
+                columns = header(line);
+                continue;
+            }
+            if (++rows > maxRows) {
+                reject(result, lineNumber, "Больше " + maxRows + " строк, остаток не импортирован");
+                break;
+            }
+            try {
+                if (reader.isTruncated()) {
+                    throw new IllegalArgumentException("Строка длиннее " + maxLineChars + " символов");
+                }
+                AdCreateDto dto = csv ? parseCsv(line, columns) : parseJson(line);
+                validate(dto);
+                batch.add(new Row(lineNumber, dto));
+            } catch (IllegalArgumentException e) {
+                reject(result, lineNumber, e.getMessage());
+            }
+            if (batch.size() == batchSize) {
+                insert(batch, authorId, result);
+                batch.clear();
+            }
+        }
+        insert(batch, authorId, result);
+        return result;
+    }
+
+    private void insert(List<Row> batch, Integer authorId, ImportResultDto result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Integer> ids = jdbcTemplate.queryForList(ALLOCATE_IDS, Integer.class, batch.size());
+                List<Object[]> ads = new ArrayList<>(batch.size());
+                List<Object[]> counters = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    AdCreateDto dto = batch.get(i).dto();
+                    ads.add(new Object[]{ids.get(i), dto.getTitle(), dto.getDescription(), dto.getPrice(), authorId});
+                    counters.add(new Object[]{ids.get(i)});
+                }
+                jdbcTemplate.batchUpdate(INSERT_ADS, ads);
+                jdbcTemplate.batchUpdate(INSERT_COUNTERS, counters);
+            });
+            result.setImported(result.getImported() + batch.size());
+        } catch (DataAccessException e) {
+            logger.warn("Пачка импорта не сохранена", e);
+            for (Row row : batch) {
+                reject(result, row.line(), "Не сохранено: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private void reject(ImportResultDto result, long line, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxErrors) {
+            result.getErrors().add(new ImportResultDto.RowError(line, message));
+        }
+    }
+
+    private AdCreateDto parseJson(String line) {
+        try {
+            AdCreateDto dto = objectMapper.readValue(line, AdCreateDto.class);
+            if (dto == null) {
+                throw new IllegalArgumentException("Ожидается объект объявления");
+            }
+            return dto;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Неверный JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static Map<String, Integer> header(String line) {
+        List<String> names = parseCsvLine(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("title") || !columns.containsKey("price")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "В заголовке CSV нужны колонки title и price");
+        }
+        return columns;
+    }
+
+    private static AdCreateDto parseCsv(String line, Map<String, Integer> columns) {
+        List<String> values = parseCsvLine(line);
+        AdCreateDto dto = new AdCreateDto();
+        dto.setTitle(column(values, columns, "title"));
+        dto.setDescription(column(values, columns, "description"));
+        String price = column(values, columns, "price");
+        if (price != null && !price.isBlank()) {
+            try {
+                dto.setPrice(Integer.valueOf(price.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("price не число: " + price);
+            }
+        }
+        return dto;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index == null || index >= values.size() ? null : values.get(index);
+    }
+
+    /**
+     * Значения через запятую, в кавычках могут быть запятые и удвоенные кавычки; перевод строки внутри значения не поддерживается
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch != '"') {
+                    value.append(ch);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(ch);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Незакрытая кавычка");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static void validate(AdCreateDto dto) {
+        if (dto.getTitle() == null || dto.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Не указан title");
+        }
+        if (dto.getTitle().length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("title длиннее " + MAX_TEXT_LENGTH + " символов");
+        }
+        if (dto.getDescription() != null && dto.getDescription().length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("description длиннее " + MAX_TEXT_LENGTH + " символов");
+        }
+        if (dto.getPrice() == null) {
+            throw new IllegalArgumentException("Не указан price");
+        }
+        if (dto.getPrice() < 0) {
+            throw new IllegalArgumentException("price меньше нуля");
+        }
+    }
+
+    private record Row(long line, AdCreateDto dto) {
+    }
+
+    /**
+     * Построчное чтение с ограничением длины: у слишком длинной строки сохраняются первые maxChars символов,
+     * остальное до перевода строки пропускается
+     */
+    private static final class LineReader {
+
+        private final Reader reader;
+        private final int maxChars;
+        private final StringBuilder line = new StringBuilder();
+        private boolean truncated;
+
+        private LineReader(InputStream in, int maxChars) {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            this.maxChars = maxChars;
+        }
+
+        /**
+         * @return строка без перевода строки или null в конце потока
+         */
+        private String next() throws IOException {
+            line.setLength(0);
+            truncated = false;
+            int ch = reader.read();
+            if (ch < 0) {
+                return null;
+            }
+            while (ch >= 0 && ch != '\n') {
+                if (line.length() < maxChars) {
+                    line.append((char) ch);
+                } else {
+                    truncated = true;
+                }
+                ch = reader.read();
+            }
+            if (!truncated && line.length() > 0 && line.charAt(line.length() - 1) == '\r') {
+                line.setLength(line.length() - 1);
+            }
+            return line.toString();
+        }
+
+        private boolean isTruncated() {
+            return truncated;
+        }
+    }
+}
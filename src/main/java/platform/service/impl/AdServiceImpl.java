@@ -4,12 +4,19 @@ import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import platform.config.CacheConfig;
 import platform.dto.AdCreateDto;
+import platform.dto.CommentCursor;
 import platform.dto.FullAdDto;
+import platform.dto.model_dto.AdsDto;
 import platform.dto.model_dto.CommentDto;
 import platform.mapper.AdCommentMapper;
 import platform.mapper.AdMapper;
@@ -18,15 +25,15 @@ import platform.model.Comment;
 import platform.model.User;
 import platform.repository.AdsCommentRepository;
 import platform.repository.AdsRepository;
-import platform.repository.ImageRepository;
 import platform.repository.UserRepository;
-import platform.security.service.impl.SecurityUtils;
 import platform.service.AdService;
+import platform.service.CacheInvalidationEvent;
 import platform.service.ImageService;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 @Transactional
 @Service
@@ -36,31 +43,38 @@ public class AdServiceImpl implements AdService {
     private final Logger logger = LoggerFactory.getLogger(AdServiceImpl.class);
     private final AdsRepository adRepository;
     private final AdsCommentRepository commentRepository;
-    private final ImageRepository imageRepository;
     private final UserRepository userRepository;
     private final ImageService imageService;
     private final AdMapper adMapper;
     private final AdCommentMapper commentMapper;
-    private final SecurityUtils securityUtils;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CommentCounter commentCounter;
+    private final AdCacheInvalidator adCacheInvalidator;
 
 
     @Override
-    public Collection<Ads> getAllAds() {
+    public List<AdsDto> getAllAds() {
         logger.info("Метод поиска всех объявлений");
-        return adRepository.findAll();
+        return adRepository.findAllAdsDto();
 
     }
 
+    @Override
+    public List<AdsDto> getAdsPage(Integer after, int limit) {
+        logger.info("Метод постраничного получения объявлений");
+        return adRepository.findAdsDtoPage(after == null ? 0 : after, PageRequest.of(0, limit));
+    }
+
     @SneakyThrows
     @Override
+    @CacheEvict(cacheNames = CacheConfig.FULL_ADS, key = "#id")
     public void updateAdsImage(int id, MultipartFile image) {
 
         logger.info("Метод обновления картинки у Объявления по его id");
         Ads ads = getAdsById(id);
-        securityUtils.checkPermissionToAds(ads);
-        imageRepository.delete(ads.getImage());
         ads.setImage(imageService.upload(image));
         adRepository.save(ads);
+        eventPublisher.publishEvent(CacheInvalidationEvent.ads(id));
 
     }
 
@@ -82,24 +96,27 @@ public class AdServiceImpl implements AdService {
         Ads ads = adMapper.toEntity(adCreateDto);
         ads.setAdsAuthor(user);
         ads.setImage(imageService.upload(adsImage));
-        return adRepository.save(ads);
+        Ads saved = adRepository.save(ads);
+        commentCounter.adCreated(saved.getId());
+        return saved;
 
     }
 
     @Override
-    public Collection<Ads> getMyAds(String Email) {
+    public List<AdsDto> getMyAds(String Email) {
 
         logger.info("Метод получения объявлений авторизованного пользователя");
         User user = userRepository.findByEmail(Email).orElseThrow();
-        return adRepository.findAllByAdsAuthorId(user.getId());
+        return adRepository.findAdsDtoByAuthorId(user.getId());
 
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.FULL_ADS, key = "#id")
     public FullAdDto getFullAd(int id) throws Exception {
 
         logger.info("Метод получения full ad");
-        return adMapper.toFullAdsDto(adRepository.findById(id).orElseThrow(() -> new Exception("Объявление не найдено")));
+        return adMapper.toFullAdsDto(adRepository.findWithAuthorById(id).orElseThrow(() -> new Exception("Объявление не найдено")));
 
     }
 
@@ -111,6 +128,22 @@ public class AdServiceImpl implements AdService {
 
     }
 
+    @Override
+    public List<Comment> getCommentsPage(int adPk, CommentCursor after, int limit) {
+
+        logger.info("Метод постраничного получения комментариев");
+        PageRequest page = PageRequest.of(0, limit);
+        return after == null
+                ? commentRepository.findPage(adPk, page)
+                : commentRepository.findPageAfter(adPk, after.createdAt(), after.id(), page);
+
+    }
+
+    @Override
+    public long getCommentCount(int adPk) {
+        return commentCounter.get(adPk);
+    }
+
     @Override
     public Comment getAdsComment(int adPk, int id) {
 
@@ -123,26 +156,45 @@ public class AdServiceImpl implements AdService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.FULL_ADS, key = "#adId")
     public Ads updateAds(int adId, AdCreateDto adCreateDto) {
 
         logger.info("Метод обновления объявления");
         Ads ads = getAdsById(adId);
-        securityUtils.checkPermissionToAds(ads);
         ads.setTitle(adCreateDto.getTitle());
         ads.setDescription(adCreateDto.getDescription());
         ads.setPrice(adCreateDto.getPrice());
+        eventPublisher.publishEvent(CacheInvalidationEvent.ads(adId));
         return adRepository.save(ads);
 
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.FULL_ADS, key = "#adId")
     public Ads deleteAdsById(int adId) {
 
         logger.info("Метод удаления объявления по id");
         Ads ads = getAdsById(adId);
-        securityUtils.checkPermissionToAds(ads);
-        commentRepository.deleteCommentByAdId(adId);
+        commentRepository.deleteAllByAdId(adId);
+        commentCounter.adDeleted(adId);
         adRepository.delete(ads);
+        eventPublisher.publishEvent(CacheInvalidationEvent.ads(adId));
+        return ads;
+
+    }
+
+    @Override
+    public int deleteUserContent(int userId) {
+
+        logger.info("Метод удаления всех объявлений и комментариев пользователя");
+        List<Integer> adIds = adRepository.findIdsByAuthorId(userId);
+        commentCounter.authorCommentsDeleted(userId);
+        int comments = commentRepository.deleteAllByAuthorId(userId);
+        comments += commentRepository.deleteAllOnAdsOfAuthor(userId);
+        commentCounter.authorAdsDeleted(userId);
+        int ads = adRepository.deleteAllByAuthorId(userId);
+        adCacheInvalidator.evict(adIds);
+        logger.info("Удалено объявлений: {}, комментариев: {}", ads, comments);
         return ads;
 
     }
@@ -152,8 +204,8 @@ public class AdServiceImpl implements AdService {
 
         logger.info("Метод удаления комментария по id");
         Comment comment = getAdsComment(adPk, id);
-        securityUtils.checkPermissionToComment(comment);
         commentRepository.delete(comment);
+        commentCounter.add(adPk, -1);
         return comment;
 
     }
@@ -163,7 +215,6 @@ public class AdServiceImpl implements AdService {
 
         logger.info("Метод редоктирования комментария по id");
         Comment comment = getAdsComment(adPk, id);
-        securityUtils.checkPermissionToComment(comment);
         comment.setText(commentUpdated.getText());
         return commentRepository.save(comment);
 
@@ -177,7 +228,9 @@ public class AdServiceImpl implements AdService {
         comment.setCommentAuthor(user);
         comment.setAd(adRepository.findById(adPk).orElseThrow(() -> new Exception("Ad not found")));
         comment.setCreatedAt(LocalDateTime.now());
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        commentCounter.add(adPk, 1);
+        return saved;
 
     }
 }
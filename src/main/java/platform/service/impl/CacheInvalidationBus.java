@@ -0,0 +1,309 @@
+package platform.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import platform.config.CacheConfig;
+import platform.model.Ads;
+import platform.model.Image;
+import platform.model.User;
+import platform.security.service.impl.CachingAuthenticationProvider;
+import platform.service.CacheInvalidationEvent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Сброс кешей на остальных узлах через LISTEN/NOTIFY Postgres, без отдельного брокера.
+ * Свои кеши узел сбрасывает сам; {@link CacheInvalidationEvent} после коммита попадает в очередь,
+ * и всё накопленное за cache.invalidation.batch-window-ms уходит одной транзакцией NOTIFY.
+ * Каждый узел слушает канал на отдельном соединении и пропускает свои же сообщения.
+ * Если сообщения могли потеряться (переполнение очереди, ошибка отправки, обрыв LISTEN) - сбрасываются все кеши
+ */
+@Component
+public class CacheInvalidationBus {
+
+    static final String CHANNEL = "cache_invalidation";
+    /**
+     * Postgres ограничивает payload NOTIFY 8000 байт
+     */
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final String ALL = "*";
+
+    private final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache fullAds;
+    private final org.hibernate.Cache secondLevelCache;
+    private final CachingAuthenticationProvider cachingAuthenticationProvider;
+    private final EmailBloomFilter emailBloomFilter;
+    private final ImageCache imageCache;
+    private final boolean enabled;
+    private final long batchWindowMillis;
+    private final long reconnectDelayMillis;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final BlockingQueue<String> pending;
+    private final AtomicBoolean lost = new AtomicBoolean();
+    private final Counter sent;
+    private final Counter received;
+    private volatile boolean running;
+    private Thread publisher;
+    private Thread listener;
+
+    public CacheInvalidationBus(DataSource dataSource,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                CacheManager cacheManager,
+                                EntityManagerFactory entityManagerFactory,
+                                CachingAuthenticationProvider cachingAuthenticationProvider,
+                                EmailBloomFilter emailBloomFilter,
+                                ImageCache imageCache,
+                                MeterRegistry meterRegistry,
+                                @Value("${cache.invalidation.enabled:true}") boolean enabled,
+                                @Value("${cache.invalidation.batch-window-ms:20}") long batchWindowMillis,
+                                @Value("${cache.invalidation.max-pending:10000}") int maxPending,
+                                @Value("${cache.invalidation.reconnect-delay-ms:1000}") long reconnectDelayMillis) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.fullAds = Objects.requireNonNull(cacheManager.getCache(CacheConfig.FULL_ADS));
+        this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.cachingAuthenticationProvider = cachingAuthenticationProvider;
+        this.emailBloomFilter = emailBloomFilter;
+        this.imageCache = imageCache;
+        this.enabled = enabled;
+        this.batchWindowMillis = batchWindowMillis;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+        this.pending = new LinkedBlockingQueue<>(maxPending);
+        this.sent = meterRegistry.counter("cache.invalidation.sent");
+        this.received = meterRegistry.counter("cache.invalidation.received");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        publisher = daemon(this::publishLoop, "cache-invalidation-publisher");
+        listener = daemon(this::listenLoop, "cache-invalidation-listener");
+        logger.info("Шина сброса кешей запущена, узел {}", nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (publisher != null) {
+            publisher.interrupt();
+        }
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!pending.offer(event.type() + ":" + event.key())) {
+            lost.set(true);
+        }
+    }
+
+    /**
+     * Отправить всё накопленное; вызывается потоком отправки после окна batch-window-ms
+     */
+    public void flush() {
+        flush(null);
+    }
+
+    private void flush(String first) {
+        List<String> drained = new ArrayList<>();
+        if (first != null) {
+            drained.add(first);
+        }
+        pending.drainTo(drained);
+        Set<String> entries = new LinkedHashSet<>(drained);
+        if (lost.getAndSet(false)) {
+            entries = Set.of(ALL);
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<String> payloads = encode(entries);
+        try {
+            transactionTemplate.executeWithoutResult(status -> payloads.forEach(payload ->
+                    jdbcTemplate.query("select pg_notify(?, ?)", rs -> {
+                    }, CHANNEL, payload)));
+            sent.increment(payloads.size());
+        } catch (RuntimeException e) {
+            logger.warn("Не удалось разослать сброс кешей, при следующей отправке сбросим всё", e);
+            lost.set(true);
+        }
+    }
+
+    /**
+     * Обработать payload, пришедший по LISTEN
+     */
+    public void onNotification(String payload) {
+        String[] lines = payload.split("\n");
+        if (nodeId.equals(lines[0])) {
+            return;
+        }
+        for (int i = 1; i < lines.length; i++) {
+            received.increment();
+            apply(lines[i]);
+        }
+    }
+
+    private List<String> encode(Set<String> entries) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(nodeId);
+        int bytes = nodeId.length();
+        for (String entry : entries) {
+            int entryBytes = entry.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (bytes + entryBytes > MAX_PAYLOAD_BYTES && payload.length() > nodeId.length()) {
+                payloads.add(payload.toString());
+                payload = new StringBuilder(nodeId);
+                bytes = nodeId.length();
+            }
+            payload.append('\n').append(entry);
+            bytes += entryBytes;
+        }
+        payloads.add(payload.toString());
+        return payloads;
+    }
+
+    private void apply(String entry) {
+        if (ALL.equals(entry)) {
+            evictAll();
+            return;
+        }
+        int separator = entry.indexOf(':');
+        if (separator < 0) {
+            return;
+        }
+        String key = entry.substring(separator + 1);
+        try {
+            switch (CacheInvalidationEvent.Type.valueOf(entry.substring(0, separator))) {
+                case ADS -> {
+                    Integer id = Integer.valueOf(key);
+                    fullAds.evict(id);
+                    secondLevelCache.evictEntityData(Ads.class, id);
+                }
+                case USER -> {
+                    secondLevelCache.evictEntityData(User.class, Integer.valueOf(key));
+                    //findByEmail мог закешировать, что такого пользователя нет
+                    secondLevelCache.evictDefaultQueryRegion();
+                }
+                case LOGIN -> cachingAuthenticationProvider.evict(key);
+                case EMAIL -> emailBloomFilter.add(key);
+                case IMAGE -> {
+                    int hashSeparator = key.indexOf(':');
+                    Integer id = Integer.valueOf(hashSeparator < 0 ? key : key.substring(0, hashSeparator));
+                    imageCache.evict(hashSeparator < 0 ? null : key.substring(hashSeparator + 1));
+                    secondLevelCache.evictEntityData(Image.class, id);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            logger.warn("Непонятная запись сброса кеша: {}", entry);
+        }
+    }
+
+    private void evictAll() {
+        fullAds.clear();
+        secondLevelCache.evictAllRegions();
+        cachingAuthenticationProvider.evictAll();
+        imageCache.evictAll();
+    }
+
+    private void publishLoop() {
+        while (running) {
+            try {
+                String first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null && !lost.get()) {
+                    continue;
+                }
+                //под нагрузкой даём очереди набраться, чтобы разослать пачку одним NOTIFY
+                Thread.sleep(batchWindowMillis);
+                flush(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void listenLoop() {
+        boolean subscribedBefore = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (subscribedBefore) {
+                    //пока соединения не было, сообщения шли мимо
+                    evictAll();
+                }
+                subscribedBefore = true;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            onNotification(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Соединение LISTEN потеряно, переподключение через {} мс", reconnectDelayMillis, e);
+                try {
+                    Thread.sleep(reconnectDelayMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
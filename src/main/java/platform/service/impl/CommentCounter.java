@@ -0,0 +1,89 @@
+package platform.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import platform.model.AdsCommentCount;
+import platform.repository.AdsCommentCountRepository;
+import platform.repository.AdsCommentRepository;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Счётчик комментариев объявления для страниц комментариев вместо COUNT(*) на каждый запрос.
+ * Меняется в той же транзакции, что и комментарии.
+ * При старте, если у каких-то объявлений счётчиков нет (объявления старше счётчиков), они заводятся;
+ * узлы, стартующие одновременно, не мешают друг другу - вставка с on conflict do nothing
+ */
+@Component
+public class CommentCounter {
+
+    private final Logger logger = LoggerFactory.getLogger(CommentCounter.class);
+    private final AdsCommentCountRepository countRepository;
+    private final AdsCommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CommentCounter(AdsCommentCountRepository countRepository,
+                          AdsCommentRepository commentRepository,
+                          TransactionTemplate transactionTemplate) {
+        this.countRepository = countRepository;
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void backfill() {
+        //обычно счётчики есть у всех: проверка останавливается на первом объявлении без счётчика
+        if (!countRepository.anyMissing()) {
+            return;
+        }
+        Integer created = transactionTemplate.execute(status -> countRepository.insertMissing());
+        if (created != null && created > 0) {
+            logger.info("Заведено {} счётчиков комментариев", created);
+        }
+    }
+
+    /**
+     * persist, а не save: у счётчика задан id, и save пошёл бы через merge с лишним SELECT
+     */
+    public void adCreated(Integer adId) {
+        entityManager.persist(new AdsCommentCount(adId, 0));
+    }
+
+    public void adDeleted(Integer adId) {
+        countRepository.deleteByAdsId(adId);
+    }
+
+    /**
+     * Перед массовым удалением комментариев автора
+     */
+    public void authorCommentsDeleted(Integer authorId) {
+        countRepository.subtractCommentsOfAuthor(authorId);
+    }
+
+    /**
+     * Перед массовым удалением объявлений автора
+     */
+    public void authorAdsDeleted(Integer authorId) {
+        countRepository.deleteByAuthorId(authorId);
+    }
+
+    public void add(Integer adId, long delta) {
+        //счётчика может не быть у объявления, созданного до его появления; его заведёт backfill при старте
+        countRepository.add(adId, delta);
+    }
+
+    /**
+     * Без счётчика - честный COUNT(*)
+     */
+    public long get(Integer adId) {
+        return countRepository.findById(adId)
+                .map(AdsCommentCount::getCount)
+                .orElseGet(() -> commentRepository.countByAdId(adId));
+    }
+}
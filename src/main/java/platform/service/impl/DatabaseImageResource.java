@@ -0,0 +1,113 @@
+package platform.service.impl;
+
+import org.springframework.core.io.AbstractResource;
+import platform.repository.ImageDataRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Содержимое из image_data, которое читается кусками по chunkSize по мере отдачи.
+ * skip не читает пропущенное, поэтому Range-запрос к концу большой картинки не тянет её начало из базы
+ */
+class DatabaseImageResource extends AbstractResource {
+
+    private final ImageDataRepository imageDataRepository;
+    private final String key;
+    private final long length;
+    private final int chunkSize;
+
+    DatabaseImageResource(ImageDataRepository imageDataRepository, String key, long length, int chunkSize) {
+        this.imageDataRepository = imageDataRepository;
+        this.key = key;
+        this.length = length;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "image_data [" + key + "]";
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ChunkedInputStream();
+    }
+
+    private class ChunkedInputStream extends InputStream {
+
+        private long position;
+        private byte[] chunk = new byte[0];
+        private int chunkPosition;
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            position++;
+            return chunk[chunkPosition++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.length - chunkPosition);
+            System.arraycopy(chunk, chunkPosition, b, off, n);
+            chunkPosition += n;
+            position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, length - position));
+            position += skipped;
+            long inChunk = chunk.length - chunkPosition;
+            if (skipped < inChunk) {
+                chunkPosition += (int) skipped;
+            } else {
+                chunk = new byte[0];
+                chunkPosition = 0;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return chunk.length - chunkPosition;
+        }
+
+        private boolean fill() throws IOException {
+            if (chunkPosition < chunk.length) {
+                return true;
+            }
+            if (position >= length) {
+                return false;
+            }
+            int size = (int) Math.min(chunkSize, length - position);
+            byte[] next = imageDataRepository.findDataChunk(key, position, size);
+            if (next == null || next.length == 0) {
+                throw new IOException("Содержимое " + key + " закончилось раньше ожидаемого");
+            }
+            chunk = next;
+            chunkPosition = 0;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package platform.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import platform.repository.ImageDataRepository;
+import platform.service.ImageStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Хранение картинок в таблице image_data
+ */
+@Service
+@ConditionalOnProperty(name = "image.storage", havingValue = "database", matchIfMissing = true)
+public class DatabaseImageStorage implements ImageStorage {
+
+    private static final String INSERT_SQL = "insert into image_data (storage_key, data) values (?, ?)"
+            + " on conflict (storage_key) do nothing";
+
+    private final ImageDataRepository imageDataRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+
+    public DatabaseImageStorage(ImageDataRepository imageDataRepository,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${image.storage.chunk-bytes:262144}") int chunkSize) {
+        this.imageDataRepository = imageDataRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Одинаковый файл могут загружать одновременно: проверка и вставка одной командой, второй вставки просто не будет.
+     * Через JdbcTemplate, а не нативный запрос репозитория: тот сбросил бы весь кеш второго уровня
+     */
+    @Override
+    public void store(String key, byte[] data) {
+        jdbcTemplate.update(INSERT_SQL, key, data);
+    }
+
+    /**
+     * bytea пишется одним значением, поэтому здесь поток всё же читается в память - но только один раз
+     */
+    @Override
+    public String store(InputStream data) throws IOException {
+        HashingInputStream in = new HashingInputStream(data);
+        byte[] bytes = in.readAllBytes();
+        String key = in.hash();
+        store(key, bytes);
+        return key;
+    }
+
+    /**
+     * Содержимое не читается сразу: {@link DatabaseImageResource} подгружает его кусками при отдаче
+     */
+    @Override
+    public Resource load(String key) {
+        Integer length = imageDataRepository.findDataLength(key);
+        if (length == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return new DatabaseImageResource(imageDataRepository, key, length, chunkSize);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return imageDataRepository.existsById(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        if (imageDataRepository.existsById(key)) {
+            imageDataRepository.deleteById(key);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package platform.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import platform.model.User;
+import platform.repository.UserRepository;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Bloom-фильтр зарегистрированных email. Если фильтр говорит "нет" - email точно свободен и в базу можно не ходить,
+ * "может быть" проверяется запросом по уникальному индексу. Заполняется при старте и при каждой регистрации.
+ * Регистрации на других узлах приходят через {@link CacheInvalidationBus}; если сообщение потеряется, дубль остановит уникальный индекс
+ */
+@Component
+public class EmailBloomFilter {
+
+    private final Logger logger = LoggerFactory.getLogger(EmailBloomFilter.class);
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public EmailBloomFilter(UserRepository userRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${users.bloom.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${users.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+        this.bitCount = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    @PostConstruct
+    public void load() {
+        LongAdder count = new LongAdder();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> emails = userRepository.streamAllEmails()) {
+                emails.forEach(email -> {
+                    add(email);
+                    count.increment();
+                });
+            }
+        });
+        logger.info("В фильтр email загружено {} адресов", count.sum());
+    }
+
+    /**
+     * @param email уже нормализованный {@link User#normalizeEmail(String)}
+     */
+    public void add(String email) {
+        if (email == null) {
+            return;
+        }
+        long h1 = hash(email);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits.accumulateAndGet((int) (bit >>> 6), 1L << bit, (current, mask) -> current | mask);
+        }
+    }
+
+    /**
+     * @return false - такого email точно нет
+     */
+    public boolean mightContain(String email) {
+        if (email == null) {
+            return false;
+        }
+        long h1 = hash(email);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a по байтам UTF-8 с перемешиванием из MurmurHash3
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
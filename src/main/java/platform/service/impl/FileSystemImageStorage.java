@@ -0,0 +1,112 @@
+package platform.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import platform.exception.CustomIOException;
+import platform.service.ImageStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Хранение картинок на диске в каталоге image.path.
+ * Файл с ключом abcdef... лежит в ab/cd/abcdef..., чтобы в одном каталоге не было сотен тысяч файлов
+ */
+@Service
+@ConditionalOnProperty(name = "image.storage", havingValue = "filesystem")
+public class FileSystemImageStorage implements ImageStorage {
+
+    private final Logger logger = LoggerFactory.getLogger(FileSystemImageStorage.class);
+    private final Path root;
+    private final Path tmp;
+
+    public FileSystemImageStorage(@Value("${image.path}") String root) throws IOException {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.tmp = Files.createDirectories(this.root.resolve("tmp"));
+        logger.info("Картинки хранятся в {}", this.root);
+    }
+
+    @Override
+    public void store(String key, byte[] data) throws IOException {
+        Path target = resolve(key);
+        if (Files.exists(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        //пишем во временный файл и атомарно переносим, чтобы никто не прочитал недописанный файл
+        Path temp = Files.createTempFile(tmp, "upload", ".tmp");
+        try {
+            Files.write(temp, data);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            //тот же файл уже загрузили параллельно
+            logger.debug("Файл {} уже существует", target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public String store(InputStream data) throws IOException {
+        //ключ известен только в конце, поэтому сначала пишем во временный файл, потом переносим под hash
+        Path temp = Files.createTempFile(tmp, "upload", ".tmp");
+        try {
+            HashingInputStream in = new HashingInputStream(data);
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            String key = in.hash();
+            Path target = resolve(key);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    logger.debug("Файл {} уже существует", target);
+                }
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Resource load(String key) {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new CustomIOException("Не удалось удалить файл картинки " + key);
+        }
+    }
+
+    Path resolve(String key) {
+        if (key == null || key.length() < 4 || !key.matches("[0-9a-zA-Z_-]+")) {
+            throw new IllegalArgumentException("Некорректный ключ картинки: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+}
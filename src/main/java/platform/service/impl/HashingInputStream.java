@@ -0,0 +1,61 @@
+package platform.service.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Поток, который по ходу чтения считает SHA-256. Hash готов после того, как поток дочитан
+ */
+class HashingInputStream extends FilterInputStream {
+
+    private final MessageDigest digest;
+
+    HashingInputStream(InputStream in) {
+        super(in);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            digest.update((byte) b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            digest.update(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) {
+        //пропуск сломал бы hash
+        return 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Можно вызвать один раз
+     */
+    String hash() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,70 @@
+package platform.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import platform.model.Image;
+import platform.model.ImageSize;
+
+/**
+ * Кеш содержимого картинок в памяти. Метаданные {@link Image} здесь не держим:
+ * их кеширует кеш второго уровня Hibernate (регион {@link Image#CACHE_REGION}).
+ * Содержимое ограничено суммарным размером в байтах (image.cache.max-bytes), а не числом записей.
+ * Caffeine вытесняет по W-TinyLFU: новая запись попадает в кеш, только если к ней обращаются чаще,
+ * чем к кандидату на вытеснение, поэтому разовый обход всех картинок не выбивает популярные.
+ * Метрики попаданий, промахов и вытеснений - в actuator как cache.* с тегом image.content
+ */
+@Component
+public class ImageCache {
+
+    private final Cache<String, byte[]> content;
+    private final long maxEntryBytes;
+
+    public ImageCache(@Value("${image.cache.max-bytes:67108864}") long maxBytes,
+                      @Value("${image.cache.max-entry-bytes:1048576}") long maxEntryBytes,
+                      MeterRegistry meterRegistry) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.content = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, byte[] data) -> data.length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, content, "image.content");
+    }
+
+    public byte[] getContent(String key) {
+        return content.getIfPresent(key);
+    }
+
+    /**
+     * Большие картинки не кешируем - они вытеснили бы десятки маленьких
+     */
+    public boolean isCacheable(Long size) {
+        return size != null && size <= maxEntryBytes;
+    }
+
+    public void putContent(String key, byte[] data) {
+        if (isCacheable((long) data.length)) {
+            content.put(key, data);
+        }
+    }
+
+    public void evict(Image image) {
+        evict(image.getHash());
+    }
+
+    public void evict(String hash) {
+        if (hash != null && !hash.isEmpty()) {
+            for (ImageSize size : ImageSize.values()) {
+                content.invalidate(size.key(hash));
+            }
+        }
+    }
+
+    public void evictAll() {
+        content.invalidateAll();
+    }
+}
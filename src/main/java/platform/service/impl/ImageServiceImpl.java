@@ -1,18 +1,35 @@
 package platform.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import platform.model.Image;
+import platform.model.ImageFormat;
+import platform.model.ImageSize;
 import platform.repository.ImageRepository;
+import platform.service.CacheInvalidationEvent;
 import platform.service.ImageService;
+import platform.service.ImageStorage;
+import platform.service.ImageUploadedEvent;
+import platform.service.ImageVariantService;
 
 import javax.transaction.Transactional;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -20,24 +37,121 @@ import java.io.IOException;
 public class ImageServiceImpl implements ImageService {
     private final Logger logger = LoggerFactory.getLogger(ImageServiceImpl.class);
     private final ImageRepository imageRepository;
+    private final ImageStorage imageStorage;
+    private final ImageCache imageCache;
+    private final ImageVariantService imageVariantService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UploadLimiter uploadLimiter;
 
 
     @Override
     public Image upload(MultipartFile multipartFile) throws IOException {
         logger.info("Метод загрузки картинки");
+        long size = multipartFile.getSize();
+        uploadLimiter.acquire(size);
+        StoredUpload stored;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            //в режиме database байты ImageData лежат в контексте персистентности до коммита - резерв снимаем тогда же
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    uploadLimiter.release(size);
+                }
+            });
+            stored = store(multipartFile);
+        } else {
+            try {
+                stored = store(multipartFile);
+            } finally {
+                uploadLimiter.release(size);
+            }
+        }
+        String hash = stored.hash();
+        //если строку в этот момент удаляет сборщик, запрос дождётся его коммита и ничего не найдёт - тогда создаём новую
+        Optional<Image> existing = imageRepository.findFirstByHashOrderByIdAsc(hash);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
         Image image = new Image();
-        image.setImage(multipartFile.getBytes());
-        image.setFileSize(multipartFile.getSize());
-        image.setMediaType(multipartFile.getContentType());
-        image.setImage(multipartFile.getBytes());
-        return imageRepository.save(image);
+        image.setFileSize(size);
+        image.setMediaType(stored.format().getMediaType());
+        image.setHash(hash);
+        image.setCreatedAt(LocalDateTime.now());
+        Image saved = imageRepository.save(image);
+        eventPublisher.publishEvent(new ImageUploadedEvent(saved));
+        return saved;
+    }
+
+    /**
+     * Файл идёт из multipart прямо в хранилище, одинаковое содержимое хранилище держит один раз.
+     * До этого формат определяется по первым байтам; заявленный клиентом Content-Type не используется
+     */
+    private StoredUpload store(MultipartFile multipartFile) throws IOException {
+        try (InputStream in = new BufferedInputStream(multipartFile.getInputStream())) {
+            in.mark(ImageFormat.HEADER_BYTES);
+            byte[] header = in.readNBytes(ImageFormat.HEADER_BYTES);
+            in.reset();
+            ImageFormat format = ImageFormat.detect(header)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                            "Поддерживаются JPEG, PNG, GIF и WebP"));
+            return new StoredUpload(imageStorage.store(in), format);
+        }
+    }
+
+    private record StoredUpload(String hash, ImageFormat format) {
     }
 
     @Override
     public Image getImageById(Integer id) {
         logger.info("Метод получения картинки по id");
-        return imageRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        //findById обслуживает кеш второго уровня, отдельный кеш метаданных не нужен
+        return imageRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    @Override
+    public ImageSize resolveSize(Image image, ImageSize size) {
+        if (size == ImageSize.ORIGINAL || !imageVariantService.canCreateVariants(image)) {
+            return ImageSize.ORIGINAL;
+        }
+        String key = size.key(image.getHash());
+        if (imageCache.getContent(key) != null || imageStorage.exists(key)) {
+            return size;
+        }
+        //картинки, загруженные до появления вариантов, догенерируем при первом запросе
+        imageVariantService.schedule(image);
+        return ImageSize.ORIGINAL;
+    }
+
+    @SneakyThrows
+    @Override
+    public Resource getImageResource(Image image, ImageSize size) {
+        logger.info("Метод получения содержимого картинки");
+        String key = size.key(image.getHash());
+        byte[] cached = imageCache.getContent(key);
+        if (cached != null) {
+            return new ByteArrayResource(cached);
+        }
+        Resource resource = imageStorage.load(key);
+        //файлы с диска отдаёт sendfile, в куче их держать незачем
+        if (resource.isFile() || !imageCache.isCacheable(resource.contentLength())) {
+            return resource;
+        }
+        byte[] data = resource instanceof ByteArrayResource byteArrayResource
+                ? byteArrayResource.getByteArray()
+                : StreamUtils.copyToByteArray(resource.getInputStream());
+        imageCache.putContent(key, data);
+        return new ByteArrayResource(data);
+    }
+
+    @Override
+    public void purge(Image image) {
+        imageCache.evict(image);
+        eventPublisher.publishEvent(CacheInvalidationEvent.image(image));
+        if (image.getHash() != null && !imageRepository.existsByHash(image.getHash())) {
+            for (ImageSize size : ImageSize.values()) {
+                imageStorage.delete(size.key(image.getHash()));
+            }
+        }
     }
 
 }
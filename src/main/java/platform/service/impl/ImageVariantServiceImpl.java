@@ -0,0 +1,224 @@
+package platform.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import platform.model.Image;
+import platform.model.ImageSize;
+import platform.service.ImageStorage;
+import platform.service.ImageUploadedEvent;
+import platform.service.ImageVariantService;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Генерация вариантов THUMBNAIL/CARD/FULL в фоне на ограниченном пуле потоков (image.variants.threads)
+ * с ограниченной очередью (image.variants.queue-capacity). Вариант хранится в том же формате, что и оригинал,
+ * под ключом {@link ImageSize#key(String)}. Пока вариант не готов, контроллеры отдают оригинал.
+ * Размеры читаются из заголовка до декодирования: картинка больше image.variants.max-pixels не декодируется.
+ * Если writer формата не умеет прозрачность (JPEG, BMP), уменьшенная копия рисуется без альфа-канала.
+ * Картинки, для которых вариантов не будет (нет ImageIO writer, не читается, слишком большая, writer отказался
+ * кодировать), запоминаются по hash
+ */
+@Service
+public class ImageVariantServiceImpl implements ImageVariantService {
+
+    private static final ImageSize[] VARIANTS = {ImageSize.THUMBNAIL, ImageSize.CARD, ImageSize.FULL};
+    private static final long UNSUPPORTED_SIZE = 10_000;
+
+    private final Logger logger = LoggerFactory.getLogger(ImageVariantServiceImpl.class);
+    private final ImageStorage imageStorage;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+    private final Cache<String, Boolean> unsupported = Caffeine.newBuilder().maximumSize(UNSUPPORTED_SIZE).build();
+    private final long maxPixels;
+
+    public ImageVariantServiceImpl(ImageStorage imageStorage,
+                                   @Value("${image.variants.threads:2}") int threads,
+                                   @Value("${image.variants.queue-capacity:100}") int queueCapacity,
+                                   @Value("${image.variants.max-pixels:25000000}") long maxPixels) {
+        this.imageStorage = imageStorage;
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Содержимое в хранилище базы видно другим соединениям только после коммита
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImageUploaded(ImageUploadedEvent event) {
+        schedule(event.image());
+    }
+
+    @Override
+    public boolean canCreateVariants(Image image) {
+        return image.getHash() != null && unsupported.getIfPresent(image.getHash()) == null;
+    }
+
+    @Override
+    public void schedule(Image image) {
+        String hash = image.getHash();
+        if (hash == null || !inProgress.add(hash)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    createVariants(image);
+                } catch (Exception e) {
+                    logger.warn("Не удалось создать варианты картинки {}", hash, e);
+                } finally {
+                    inProgress.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(hash);
+            logger.warn("Очередь генерации вариантов заполнена, картинка {} пропущена", hash);
+        }
+    }
+
+    /**
+     * Синхронно создаёт недостающие варианты
+     */
+    public void createVariants(Image image) throws IOException {
+        ImageWriter writer = writerFor(image.getMediaType());
+        if (writer == null) {
+            logger.info("Для {} варианты не создаются", image.getMediaType());
+            unsupported.put(image.getHash(), Boolean.TRUE);
+            return;
+        }
+        ImageWriterSpi provider = writer.getOriginatingProvider();
+        writer.dispose();
+        String format = provider.getFormatNames()[0];
+        boolean opaque = !provider.canEncodeImage(ImageTypeSpecifier.createFromBufferedImageType(BufferedImage.TYPE_INT_ARGB));
+        Resource original = imageStorage.load(image.getHash());
+        BufferedImage source;
+        try (InputStream in = original.getInputStream()) {
+            source = decode(in, image.getHash());
+        }
+        if (source == null) {
+            unsupported.put(image.getHash(), Boolean.TRUE);
+            return;
+        }
+        for (ImageSize size : VARIANTS) {
+            String key = size.key(image.getHash());
+            if (imageStorage.exists(key)) {
+                continue;
+            }
+            byte[] variant = encode(scale(source, size.getMaxSide(), opaque), format, original);
+            if (variant == null) {
+                logger.info("ImageIO не смог записать {} для картинки {}", format, image.getHash());
+                unsupported.put(image.getHash(), Boolean.TRUE);
+                return;
+            }
+            imageStorage.store(key, variant);
+        }
+    }
+
+    /**
+     * @return картинка или null, если формат не читается или пикселей больше max-pixels
+     */
+    private BufferedImage decode(InputStream in, String hash) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                logger.info("Картинку {} не удалось прочитать", hash);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                //размеры берутся из заголовка: маленький файл может объявить 50000x50000 и занять гигабайты при декодировании
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    logger.info("Картинка {} слишком большая для вариантов: {} пикселей", hash, pixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * @return байты варианта или null, если writer не смог закодировать картинку
+     */
+    private static byte[] encode(BufferedImage image, String format, Resource original) throws IOException {
+        if (image == null) {
+            //оригинал уже меньше варианта - отдаём его же
+            try (InputStream in = original.getInputStream()) {
+                return in.readAllBytes();
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        //write возвращает false вместо исключения, если тип картинки writer не поддерживает
+        if (!ImageIO.write(image, format, out)) {
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return уменьшенная копия или null, если картинка и так помещается в maxSide
+     */
+    private static BufferedImage scale(BufferedImage source, int maxSide, boolean opaque) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (Math.max(width, height) <= maxSide) {
+            return null;
+        }
+        double ratio = (double) maxSide / Math.max(width, height);
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static ImageWriter writerFor(String mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(mediaType);
+        return writers.hasNext() ? writers.next() : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
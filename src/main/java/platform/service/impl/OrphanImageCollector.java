@@ -0,0 +1,139 @@
+package platform.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import platform.model.Image;
+import platform.repository.ImageRepository;
+import platform.service.ImageService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Периодически удаляет картинки, на которые не ссылается ни одно объявление и ни один пользователь.
+ * Работает пачками по image.gc.batch-size, каждая пачка - отдельная транзакция, между пачками пауза,
+ * за один проход не больше image.gc.max-batches пачек. Свежие картинки (моложе image.gc.grace-hours) не трогает:
+ * их могли только что загрузить под объявление, которое ещё сохраняется.
+ * В режиме image.gc.dry-run только считает, что было бы удалено
+ */
+@Component
+@ConditionalOnProperty(name = "image.gc.enabled", havingValue = "true", matchIfMissing = true)
+public class OrphanImageCollector {
+
+    private final Logger logger = LoggerFactory.getLogger(OrphanImageCollector.class);
+    private final ImageRepository imageRepository;
+    private final ImageService imageService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+    private final long batchPauseMillis;
+    private final long graceHours;
+    private final boolean dryRun;
+    private final Counter reclaimedBytes;
+    private final Counter reclaimedImages;
+
+    public OrphanImageCollector(ImageRepository imageRepository,
+                                ImageService imageService,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${image.gc.batch-size:100}") int batchSize,
+                                @Value("${image.gc.max-batches:50}") int maxBatches,
+                                @Value("${image.gc.batch-pause-ms:200}") long batchPauseMillis,
+                                @Value("${image.gc.grace-hours:24}") long graceHours,
+                                @Value("${image.gc.dry-run:false}") boolean dryRun) {
+        this.imageRepository = imageRepository;
+        this.imageService = imageService;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.batchPauseMillis = batchPauseMillis;
+        this.graceHours = graceHours;
+        this.dryRun = dryRun;
+        String mode = String.valueOf(dryRun);
+        this.reclaimedBytes = Counter.builder("image.gc.reclaimed.bytes")
+                .description("Объём удалённых картинок без ссылок")
+                .baseUnit("bytes")
+                .tag("dry.run", mode)
+                .register(meterRegistry);
+        this.reclaimedImages = Counter.builder("image.gc.reclaimed.images")
+                .description("Число удалённых картинок без ссылок")
+                .tag("dry.run", mode)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${image.gc.interval-ms:3600000}", initialDelayString = "${image.gc.initial-delay-ms:300000}")
+    public void collect() {
+        LocalDateTime before = LocalDateTime.now().minusHours(graceHours);
+        int after = 0;
+        long images = 0;
+        long bytes = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<Image> orphans = imageRepository.findOrphans(after, before, PageRequest.of(0, batchSize));
+            if (orphans.isEmpty()) {
+                break;
+            }
+            after = orphans.get(orphans.size() - 1).getId();
+            List<Image> deleted = dryRun ? orphans : deleteBatch(orphans);
+            for (Image image : deleted) {
+                if (!dryRun) {
+                    //содержимое удаляем только после коммита, иначе при откате строка останется без байтов
+                    imageService.purge(image);
+                }
+                bytes += image.getFileSize() == null ? 0 : image.getFileSize();
+            }
+            images += deleted.size();
+            if (orphans.size() < batchSize) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+        reclaimedImages.increment(images);
+        reclaimedBytes.increment(bytes);
+        if (images > 0) {
+            logger.info(dryRun ? "Можно удалить {} картинок без ссылок, {} байт" : "Удалено {} картинок без ссылок, {} байт",
+                    images, bytes);
+        }
+    }
+
+    private List<Image> deleteBatch(List<Image> orphans) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<Image> deleted = new ArrayList<>();
+                for (Image image : orphans) {
+                    if (imageRepository.deleteIfOrphan(image.getId()) == 1) {
+                        deleted.add(image);
+                    }
+                }
+                return deleted;
+            });
+        } catch (RuntimeException e) {
+            //например, картинку успели снова использовать; пачка откатится и попадёт в следующий проход
+            logger.warn("Не удалось удалить пачку картинок без ссылок", e);
+            return List.of();
+        }
+    }
+
+    private boolean pause() {
+        if (batchPauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(batchPauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
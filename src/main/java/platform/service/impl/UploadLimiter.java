@@ -0,0 +1,49 @@
+package platform.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import platform.exception.UploadLimitExceededException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничение на суммарный объём загрузок, которые обрабатываются одновременно (image.upload.max-in-flight-bytes).
+ * Если лимит исчерпан, загрузка сразу получает 503 с Retry-After, а не ждёт и не занимает память
+ */
+@Component
+public class UploadLimiter {
+
+    private final AtomicLong inFlight = new AtomicLong();
+    private final long maxInFlightBytes;
+    private final long retryAfterSeconds;
+
+    public UploadLimiter(@Value("${image.upload.max-in-flight-bytes:268435456}") long maxInFlightBytes,
+                         @Value("${image.upload.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Резервирует bytes; после загрузки нужно вызвать {@link #release(long)}
+     *
+     * @throws UploadLimitExceededException если лимит исчерпан
+     */
+    public void acquire(long bytes) {
+        long current;
+        do {
+            current = inFlight.get();
+            //одиночный файл больше лимита пропускаем, если больше ничего не загружается
+            if (current > 0 && current + bytes > maxInFlightBytes) {
+                throw new UploadLimitExceededException(retryAfterSeconds);
+            }
+        } while (!inFlight.compareAndSet(current, current + bytes));
+    }
+
+    public void release(long bytes) {
+        inFlight.addAndGet(-bytes);
+    }
+
+    public long getInFlightBytes() {
+        return inFlight.get();
+    }
+}
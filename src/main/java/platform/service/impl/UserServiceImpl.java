@@ -4,17 +4,21 @@ import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import platform.dto.model_dto.UserDto;
+import platform.exception.RegisterException;
 import platform.model.User;
 import platform.repository.UserRepository;
 import platform.security.dto.Role;
+import platform.security.service.impl.CachingAuthenticationProvider;
+import platform.security.service.impl.MyUserDetails;
 import platform.security.service.impl.SecurityUtils;
 import platform.security.service.impl.UserDetailsServiceImpl;
+import platform.service.CacheInvalidationEvent;
 import platform.service.ImageService;
 import platform.service.UserService;
 
@@ -32,12 +36,16 @@ public class UserServiceImpl implements UserService {
     private final UserDetailsServiceImpl userDetailsService;
     private final ImageService imageService;
     private final SecurityUtils securityUtils;
+    private final CachingAuthenticationProvider cachingAuthenticationProvider;
+    private final EmailBloomFilter emailBloomFilter;
+    private final AdCacheInvalidator adCacheInvalidator;
+    private final ApplicationEventPublisher eventPublisher;
 
     //в любом случае у нас есть пользователь по дефолту
     @PostConstruct
     public void addDefaultUser() {
         logger.info("Метод создания дефолтного пользователя");
-        if (!userRepository.existsByEmailContains("user@email.com")) {
+        if (!userRepository.existsByEmail("user@email.com")) {
             User user = new User();
             user.setPassword("password");
             user.setEmail("user@email.com");
@@ -51,22 +59,30 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User addUser(User user) {
-        if (userRepository.existsByEmailContains(user.getEmail())) {
-            //  throw new ValidationException("Пользователь с таким email уже существует");
+        user.setEmail(User.normalizeEmail(user.getEmail()));
+        //фильтр отвечает "точно нет" без запроса в базу для почти всех новых адресов
+        if (emailBloomFilter.mightContain(user.getEmail()) && userRepository.existsByEmail(user.getEmail())) {
+            throw new RegisterException("Пользователь с таким email уже существует");
         }
         if (user.getRole() == null) {
             //если не назначили пользователю роль
             user.setRole(Role.USER);
         }
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        emailBloomFilter.add(saved.getEmail());
+        eventPublisher.publishEvent(CacheInvalidationEvent.email(saved.getEmail()));
+        eventPublisher.publishEvent(CacheInvalidationEvent.user(saved.getId()));
+        return saved;
     }
 
     @Override
     public void updatePassword(String newPassword, String currentPassword) {
         logger.info("Метод смены пароля");
-        UserDetails userDetails = securityUtils.getUserDetailsFromContext();
+        MyUserDetails userDetails = securityUtils.getUserDetailsFromContext();
         userDetailsService.updatePassword(userDetails, passwordEncoder.encode(newPassword));
+        cachingAuthenticationProvider.evict(userDetails.getUsername());
+        publishUserChanged(userDetails.getId(), userDetails.getUsername());
     }
 
     @Override
@@ -76,6 +92,10 @@ public class UserServiceImpl implements UserService {
         user.setFirstName(userDto.getFirstName());
         user.setLastName(userDto.getLastName());
         user.setPhone(userDto.getPhone());
+        cachingAuthenticationProvider.evict(email);
+        //имя и телефон автора скопированы в закешированные карточки объявлений
+        adCacheInvalidator.evictAuthor(user.getId());
+        publishUserChanged(user.getId(), email);
         return userRepository.save(user);
     }
 
@@ -86,7 +106,9 @@ public class UserServiceImpl implements UserService {
         logger.info("Метод замены/загрузки картинки пользователю");
         User user = userRepository.findByEmail(email).orElseThrow();
         user.setImage(imageService.upload(image));
-        return "/users/image/" + userRepository.save(user).getImage().getId();
+        String link = "/users/image/" + userRepository.save(user).getImage().getId();
+        eventPublisher.publishEvent(CacheInvalidationEvent.user(user.getId()));
+        return link;
 
     }
 
@@ -109,12 +131,22 @@ public class UserServiceImpl implements UserService {
         //чтоб в контроллере смогли поставить админку обычному пользователю
         User user = getUserById(id);
         user.setRole(role);
+        cachingAuthenticationProvider.evict(user.getEmail());
+        publishUserChanged(user.getId(), user.getEmail());
         return userRepository.save(user);
 
     }
 
+    /**
+     * Другие узлы сбрасывают у себя пользователя и его проверенный логин
+     */
+    private void publishUserChanged(Integer id, String email) {
+        eventPublisher.publishEvent(CacheInvalidationEvent.user(id));
+        eventPublisher.publishEvent(CacheInvalidationEvent.login(email));
+    }
+
     private User getUserByName(String username) {
-        return userRepository.findByEmail(username)
+        return userRepository.findByEmail(User.normalizeEmail(username))
                 .orElseThrow(() -> new UsernameNotFoundException("Пользователь по email не найден"));
     }
 }
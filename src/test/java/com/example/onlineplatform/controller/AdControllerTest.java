@@ -5,12 +5,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 import platform.controller.AdController;
 import platform.dto.AdCreateDto;
+import platform.dto.CommentCursor;
 import platform.dto.FullAdDto;
 import platform.dto.ResponseWrapper;
 import platform.dto.model_dto.AdsDto;
@@ -20,14 +29,22 @@ import platform.mapper.AdMapper;
 import platform.model.Ads;
 import platform.model.Comment;
 import platform.model.Image;
+import platform.model.ImageSize;
 import platform.service.impl.AdServiceImpl;
 import platform.service.impl.ImageServiceImpl;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -52,19 +69,47 @@ public class AdControllerTest {
     @Test
     public void getAllAds_shouldReturnListOfAdsDto() {
 
-        List<Ads> ads = new ArrayList<>();
-        ads.add(new Ads());
-        ads.add(new Ads());
-
         List<AdsDto> adsDto = new ArrayList<>();
         adsDto.add(new AdsDto());
         adsDto.add(new AdsDto());
 
-        when(adService.getAllAds()).thenReturn(ads);
-        when(adMapper.toDto(any(Ads.class))).thenReturn(new AdsDto());
+        when(adService.getAllAds()).thenReturn(adsDto);
+
+        ResponseWrapper<AdsDto> result = adController.getAllAds(null, null);
+
+        assertEquals(2, result.getCount());
+        verify(adMapper, never()).toDto(any(Ads.class));
+
+    }
+
+    @Test
+    public void getAllAds_withLimit_shouldReturnPageWithNextCursor() {
+
+        AdsDto first = new AdsDto();
+        first.setPk(3);
+        AdsDto second = new AdsDto();
+        second.setPk(7);
+
+        when(adService.getAdsPage(null, 2)).thenReturn(List.of(first, second));
+
+        ResponseWrapper<AdsDto> result = adController.getAllAds(null, 2);
+
+        assertEquals(2, result.getCount());
+        assertEquals("7", result.getNext());
+    }
+
+    @Test
+    public void getAllAds_lastPage_shouldReturnNullCursor() {
+
+        AdsDto ads = new AdsDto();
+        ads.setPk(8);
 
-        ResponseWrapper<AdsDto> result = adController.getAllAds();
+        when(adService.getAdsPage(7, 2)).thenReturn(List.of(ads));
 
+        ResponseWrapper<AdsDto> result = adController.getAllAds(7, 2);
+
+        assertEquals(1, result.getCount());
+        assertNull(result.getNext());
     }
 
 
@@ -93,6 +138,50 @@ public class AdControllerTest {
         assertEquals(fullAdDto, result.getBody());
     }
 
+    @Test
+    public void getComments_withLimit_shouldReturnPageWithCursorAndTotal() {
+
+        Comment first = new Comment();
+        first.setId(9);
+        first.setCreatedAt(LocalDateTime.of(2024, 5, 1, 10, 20));
+        Comment second = new Comment();
+        second.setId(4);
+        second.setCreatedAt(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_000_000));
+
+        when(adService.getCommentsPage(1, null, 2)).thenReturn(List.of(first, second));
+        when(adService.getCommentCount(1)).thenReturn(57L);
+        when(commentMapper.toDto(any(Comment.class))).thenReturn(new CommentDto());
+
+        ResponseWrapper<CommentDto> result = adController.getComments(1, null, 2, false);
+
+        assertEquals(2, result.getCount());
+        assertEquals(57L, result.getTotal());
+        assertEquals("2024-05-01T10:15:30.123_4", result.getNext());
+        assertEquals(new CommentCursor(second.getCreatedAt(), 4), CommentCursor.parse(result.getNext()));
+    }
+
+    @Test
+    public void getComments_withoutParams_shouldReturnFirstPage() {
+
+        when(adService.getCommentsPage(1, null, 20)).thenReturn(List.of());
+        when(adService.getCommentCount(1)).thenReturn(0L);
+
+        ResponseWrapper<CommentDto> result = adController.getComments(1, null, null, false);
+
+        assertEquals(0, result.getCount());
+        assertNull(result.getNext());
+        verify(adService, never()).getComments(anyInt());
+    }
+
+    @Test
+    public void getComments_withBadCursor_shouldReturnBadRequest() {
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> adController.getComments(1, "not-a-cursor", 2, false));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+
     @Test
     public void getAdsComment_shouldReturnCommentDto() {
 
@@ -112,11 +201,91 @@ public class AdControllerTest {
     @Test
     public void getAdsImage_shouldReturnImageBytes() {
 
-        when(imageService.getImageById(1)).thenReturn(new Image());
+        Image image = new Image();
+        image.setHash("abc");
+        image.setMediaType("image/jpeg");
+        when(imageService.getImageById(1)).thenReturn(image);
+        when(imageService.resolveSize(image, ImageSize.ORIGINAL)).thenReturn(ImageSize.ORIGINAL);
+        when(imageService.getImageResource(image, ImageSize.ORIGINAL)).thenReturn(new ByteArrayResource(new byte[]{1, 2, 3}));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<Resource> result = adController.getAdsImage(1, ImageSize.ORIGINAL,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/ads/image/1"), response));
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(MediaType.IMAGE_JPEG, result.getHeaders().getContentType());
+        assertEquals("\"abc\"", response.getHeader(HttpHeaders.ETAG));
+        assertTrue(result.getHeaders().getCacheControl().contains("immutable"));
+    }
+
+    @Test
+    public void getAdsImage_notAllowedType_shouldBeDownloadNotRendered() {
+
+        Image image = new Image();
+        image.setHash("abc");
+        image.setMediaType("text/html");
+        when(imageService.getImageById(1)).thenReturn(image);
+        when(imageService.resolveSize(image, ImageSize.ORIGINAL)).thenReturn(ImageSize.ORIGINAL);
+        when(imageService.getImageResource(image, ImageSize.ORIGINAL)).thenReturn(new ByteArrayResource(new byte[]{1, 2, 3}));
+
+        ResponseEntity<Resource> result = adController.getAdsImage(1, ImageSize.ORIGINAL,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/ads/image/1"), new MockHttpServletResponse()));
+
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, result.getHeaders().getContentType());
+        assertTrue(result.getHeaders().getContentDisposition().isAttachment());
+        assertEquals("nosniff", result.getHeaders().getFirst("X-Content-Type-Options"));
+    }
+
+    @Test
+    public void getAdsImage_variantNotReady_shouldServeOriginalWithoutImmutable() {
+
+        Image image = new Image();
+        image.setHash("abc");
+        when(imageService.getImageById(1)).thenReturn(image);
+        when(imageService.resolveSize(image, ImageSize.THUMBNAIL)).thenReturn(ImageSize.ORIGINAL);
+        when(imageService.getImageResource(image, ImageSize.ORIGINAL)).thenReturn(new ByteArrayResource(new byte[]{1, 2, 3}));
+        MockHttpServletResponse response = new MockHttpServletResponse();
 
-        ResponseEntity<byte[]> result = adController.getAdsImage(1);
+        ResponseEntity<Resource> result = adController.getAdsImage(1, ImageSize.THUMBNAIL,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/ads/image/1"), response));
 
         assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("\"abc\"", response.getHeader(HttpHeaders.ETAG));
+        assertFalse(result.getHeaders().getCacheControl().contains("immutable"));
+    }
+
+    @Test
+    public void getAdsImage_variantReady_shouldUseVariantEtag() {
+
+        Image image = new Image();
+        image.setHash("abc");
+        when(imageService.getImageById(1)).thenReturn(image);
+        when(imageService.resolveSize(image, ImageSize.CARD)).thenReturn(ImageSize.CARD);
+        when(imageService.getImageResource(image, ImageSize.CARD)).thenReturn(new ByteArrayResource(new byte[]{1}));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<Resource> result = adController.getAdsImage(1, ImageSize.CARD,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/ads/image/1"), response));
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("\"abc_card\"", response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void getAdsImage_matchingEtag_shouldReturnNotModifiedWithoutContent() {
+
+        Image image = new Image();
+        image.setHash("abc");
+        when(imageService.getImageById(1)).thenReturn(image);
+        when(imageService.resolveSize(image, ImageSize.ORIGINAL)).thenReturn(ImageSize.ORIGINAL);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ads/image/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"abc\"");
+
+        ResponseEntity<Resource> result = adController.getAdsImage(1, ImageSize.ORIGINAL,
+                new ServletWebRequest(request, new MockHttpServletResponse()));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+        verify(imageService, never()).getImageResource(any(Image.class), any(ImageSize.class));
     }
 
     @Test
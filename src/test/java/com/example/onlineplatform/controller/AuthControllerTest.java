@@ -0,0 +1,92 @@
+package com.example.onlineplatform.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import platform.dto.LoginReqDto;
+import platform.exception.TooManyRequestsException;
+import platform.security.controller.AuthController;
+import platform.security.service.AuthService;
+import platform.security.service.impl.ClientIpResolver;
+import platform.security.service.impl.RateLimiter;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthControllerTest {
+
+    private static final String BALANCER = "10.0.0.5";
+
+    @Mock
+    private AuthService authService;
+
+    private AuthController authController;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        //по IP одна попытка, по email с запасом
+        RateLimiter rateLimiter = new RateLimiter(1, 1, 100, 100, 1, 1, 100);
+        authController = new AuthController(authService, rateLimiter, new ClientIpResolver(List.of("10.0.0.0/8")));
+        lenient().when(authService.createToken(anyString(), anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    public void login_ForwardedClientsBehindBalancer_GetSeparateBuckets() {
+        assertDoesNotThrow(() -> authController.login(login(), request(BALANCER, "203.0.113.1")));
+        assertDoesNotThrow(() -> authController.login(login(), request(BALANCER, "203.0.113.2")));
+
+        assertThrows(TooManyRequestsException.class,
+                () -> authController.login(login(), request(BALANCER, "203.0.113.1")));
+    }
+
+    @Test
+    public void login_ForwardedChain_UsesFirstUntrustedFromRight() {
+        assertDoesNotThrow(() -> authController.login(login(), request(BALANCER, "198.51.100.7, 203.0.113.1, 10.0.0.9")));
+
+        //левые адреса клиент может подставить сам
+        assertThrows(TooManyRequestsException.class,
+                () -> authController.login(login(), request(BALANCER, "198.51.100.8, 203.0.113.1")));
+    }
+
+    @Test
+    public void login_ForwardedHeaderFromUntrustedPeer_IsIgnored() {
+        assertDoesNotThrow(() -> authController.login(login(), request("203.0.113.50", "198.51.100.1")));
+
+        assertThrows(TooManyRequestsException.class,
+                () -> authController.login(login(), request("203.0.113.50", "198.51.100.2")));
+    }
+
+    @Test
+    public void login_EmailSpellingVariants_ShareOneBucket() {
+        //по IP с запасом, по email одна попытка
+        AuthController controller = new AuthController(authService, new RateLimiter(100, 100, 1, 1, 1, 1, 100),
+                new ClientIpResolver(List.of()));
+
+        assertDoesNotThrow(() -> controller.login(login(), request("203.0.113.1", null)));
+
+        LoginReqDto variant = LoginReqDto.builder().username("  User@Example.COM ").password("password").build();
+        assertThrows(TooManyRequestsException.class, () -> controller.login(variant, request("203.0.113.2", null)));
+    }
+
+    private static LoginReqDto login() {
+        return LoginReqDto.builder().username("user@example.com").password("password").build();
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
@@ -5,23 +5,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import platform.controller.UserController;
 import platform.dto.NewPasswordDto;
 import platform.dto.model_dto.UserDto;
 import platform.mapper.UserMapper;
 import platform.model.Image;
+import platform.model.ImageSize;
 import platform.model.User;
 import platform.repository.UserRepository;
 import platform.security.dto.Role;
 import platform.service.ImageService;
 import platform.service.UserService;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -141,13 +146,18 @@ public class UserControllerTest {
         int id = 1;
 
         Image image = new Image();
-        image.setImage(new byte[] {1, 2, 3});
+        image.setId(id);
+        image.setHash("abc");
+        Resource resource = new ByteArrayResource(new byte[] {1, 2, 3});
 
         when(imageService.getImageById(id)).thenReturn(image);
+        when(imageService.resolveSize(image, ImageSize.ORIGINAL)).thenReturn(ImageSize.ORIGINAL);
+        when(imageService.getImageResource(image, ImageSize.ORIGINAL)).thenReturn(resource);
 
-        ResponseEntity<byte[]> response = userController.getImageById(id);
+        ResponseEntity<Resource> response = userController.getImageById(id, ImageSize.ORIGINAL,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/users/image/1"), new MockHttpServletResponse()));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertArrayEquals(image.getImage(), response.getBody());
+        assertEquals(resource, response.getBody());
     }
 }
\ No newline at end of file
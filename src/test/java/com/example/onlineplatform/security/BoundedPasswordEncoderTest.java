@@ -0,0 +1,84 @@
+package com.example.onlineplatform.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import platform.exception.ServiceBusyException;
+import platform.security.service.impl.BoundedPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        encoder.shutdown();
+    }
+
+    @Test
+    public void matches_DelegatesToWrappedEncoder() {
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        when(delegate.matches("password", "hash")).thenReturn(true);
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, 1000, meterRegistry);
+
+        assertTrue(encoder.matches("password", "hash"));
+    }
+
+    @Test
+    public void matches_QueueFull_RejectsImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        when(delegate.matches(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, 10000, meterRegistry);
+
+        CompletableFuture.runAsync(() -> encoder.matches("a", "hash"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture.runAsync(() -> encoder.matches("b", "hash"));
+        waitForQueued();
+
+        ServiceBusyException e = assertThrows(ServiceBusyException.class, () -> encoder.matches("c", "hash"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        assertEquals(1.0, meterRegistry.get("bcrypt.rejected").counter().count());
+    }
+
+    @Test
+    public void matches_SlowCheck_TimesOut() {
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        when(delegate.matches(any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return true;
+        });
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, 50, meterRegistry);
+
+        assertThrows(ServiceBusyException.class, () -> encoder.matches("a", "hash"));
+    }
+
+    private void waitForQueued() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (meterRegistry.get("executor.queued").tag("name", "bcrypt").gauge().value() >= 1) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+    }
+}
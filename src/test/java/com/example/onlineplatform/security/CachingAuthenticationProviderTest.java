@@ -0,0 +1,113 @@
+package com.example.onlineplatform.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import platform.model.User;
+import platform.security.dto.Role;
+import platform.security.service.impl.CachingAuthenticationProvider;
+import platform.security.service.impl.MyUserDetails;
+import platform.security.service.impl.UserDetailsServiceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CachingAuthenticationProviderTest {
+
+    private static final String EMAIL = "test@example.com";
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    public void authenticate_RepeatedLogin_SkipsLookupAndBcrypt() {
+        CachingAuthenticationProvider provider = provider();
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenAnswer(invocation -> userDetails());
+        when(passwordEncoder.matches("password", "hash")).thenReturn(true);
+
+        provider.authenticate(login("password"));
+        Authentication result = provider.authenticate(login("password"));
+
+        assertEquals(EMAIL, result.getName());
+        verify(userDetailsService, times(1)).loadUserByUsername(EMAIL);
+        verify(passwordEncoder, times(1)).matches("password", "hash");
+    }
+
+    @Test
+    public void authenticate_WrongPassword_GoesToBcrypt() {
+        CachingAuthenticationProvider provider = provider();
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenAnswer(invocation -> userDetails());
+        when(passwordEncoder.matches("password", "hash")).thenReturn(true);
+        when(passwordEncoder.matches("wrong", "hash")).thenReturn(false);
+
+        provider.authenticate(login("password"));
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(login("wrong")));
+    }
+
+    @Test
+    public void authenticate_AfterEvict_ChecksAgain() {
+        CachingAuthenticationProvider provider = provider();
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenAnswer(invocation -> userDetails());
+        when(passwordEncoder.matches("password", "hash")).thenReturn(true);
+
+        provider.authenticate(login("password"));
+        provider.evict(EMAIL);
+        provider.authenticate(login("password"));
+
+        verify(passwordEncoder, times(2)).matches("password", "hash");
+    }
+
+    @Test
+    public void evict_InTransaction_EvictsAgainAfterCommit() {
+        CachingAuthenticationProvider provider = provider();
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenAnswer(invocation -> userDetails());
+        when(passwordEncoder.matches("password", "hash")).thenReturn(true);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            provider.evict(EMAIL);
+            //вход со старым паролем до коммита смены пароля
+            provider.authenticate(login("password"));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        provider.authenticate(login("password"));
+
+        verify(passwordEncoder, times(2)).matches("password", "hash");
+    }
+
+    private CachingAuthenticationProvider provider() {
+        return new CachingAuthenticationProvider(userDetailsService, passwordEncoder, new SimpleMeterRegistry(),
+                true, 60, 100);
+    }
+
+    private static UsernamePasswordAuthenticationToken login(String password) {
+        return new UsernamePasswordAuthenticationToken(EMAIL, password);
+    }
+
+    private static MyUserDetails userDetails() {
+        User user = new User();
+        user.setId(1);
+        user.setEmail(EMAIL);
+        user.setPassword("hash");
+        user.setRole(Role.USER);
+        return new MyUserDetails(user);
+    }
+}
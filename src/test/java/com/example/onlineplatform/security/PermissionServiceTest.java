@@ -0,0 +1,83 @@
+package com.example.onlineplatform.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import platform.repository.AdsCommentRepository;
+import platform.repository.AdsRepository;
+import platform.security.dto.Role;
+import platform.security.service.impl.MyUserDetails;
+import platform.security.service.impl.PermissionService;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PermissionServiceTest {
+
+    @Mock
+    private AdsRepository adsRepository;
+
+    @Mock
+    private AdsCommentRepository commentRepository;
+
+    @InjectMocks
+    private PermissionService permissionService;
+
+    @AfterEach
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void canEditAds_Admin_NoQuery() {
+        login(1, Role.ADMIN);
+
+        assertTrue(permissionService.canEditAds(10));
+        verifyNoInteractions(adsRepository);
+    }
+
+    @Test
+    public void canEditAds_Owner() {
+        login(1, Role.USER);
+        when(adsRepository.findAuthorIdById(10)).thenReturn(Optional.of(1));
+
+        assertTrue(permissionService.canEditAds(10));
+    }
+
+    @Test
+    public void canEditAds_NotOwner() {
+        login(2, Role.USER);
+        when(adsRepository.findAuthorIdById(10)).thenReturn(Optional.of(1));
+
+        assertFalse(permissionService.canEditAds(10));
+    }
+
+    @Test
+    public void canEditComment_NotOwner() {
+        login(2, Role.USER);
+        when(commentRepository.findAuthorIdByIdAndAdId(5, 10)).thenReturn(Optional.of(1));
+
+        assertFalse(permissionService.canEditComment(10, 5));
+    }
+
+    @Test
+    public void canEditAds_Anonymous() {
+        assertFalse(permissionService.canEditAds(10));
+    }
+
+    private static void login(int id, Role role) {
+        MyUserDetails userDetails = new MyUserDetails(id, "user@example.com", role);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+}
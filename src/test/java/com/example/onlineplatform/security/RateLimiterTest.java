@@ -0,0 +1,73 @@
+package com.example.onlineplatform.security;
+
+import org.junit.jupiter.api.Test;
+import platform.exception.TooManyRequestsException;
+import platform.security.service.impl.RateLimiter;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterTest {
+
+    @Test
+    public void acquire_OverCapacity_ThrowsWithRetryAfter() {
+        RateLimiter rateLimiter = new RateLimiter(3, 1, 5, 5, 5, 2, 100);
+
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire(RateLimiter.LOGIN_IP, "10.0.0.1");
+        }
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> rateLimiter.acquire(RateLimiter.LOGIN_IP, "10.0.0.1"));
+
+        assertTrue(e.getRetryAfterSeconds() > 0 && e.getRetryAfterSeconds() <= 60);
+    }
+
+    @Test
+    public void acquire_KeysAndBudgetsAreIndependent() {
+        RateLimiter rateLimiter = new RateLimiter(1, 1, 1, 1, 1, 1, 100);
+
+        rateLimiter.acquire(RateLimiter.LOGIN_IP, "10.0.0.1");
+
+        assertDoesNotThrow(() -> rateLimiter.acquire(RateLimiter.LOGIN_IP, "10.0.0.2"));
+        assertDoesNotThrow(() -> rateLimiter.acquire(RateLimiter.REGISTER_IP, "10.0.0.1"));
+    }
+
+    @Test
+    public void acquire_EmailIsCaseInsensitive() {
+        RateLimiter rateLimiter = new RateLimiter(5, 5, 1, 1, 5, 2, 100);
+
+        rateLimiter.acquire(RateLimiter.LOGIN_EMAIL, "User@Example.com");
+
+        assertThrows(TooManyRequestsException.class,
+                () -> rateLimiter.acquire(RateLimiter.LOGIN_EMAIL, "user@example.com"));
+    }
+
+    @Test
+    public void acquire_ManyNewKeys_DoNotResetLimitedKey() {
+        RateLimiter rateLimiter = new RateLimiter(1, 1, 1, 1, 1, 1, 100);
+        rateLimiter.acquire(RateLimiter.LOGIN_EMAIL, "victim@example.com");
+
+        for (int i = 0; i < 1000; i++) {
+            try {
+                rateLimiter.acquire(RateLimiter.LOGIN_EMAIL, "spray" + i + "@example.com");
+            } catch (TooManyRequestsException ignored) {
+                //сверх max-keys новые ключи делят общее ведро
+            }
+        }
+
+        assertThrows(TooManyRequestsException.class,
+                () -> rateLimiter.acquire(RateLimiter.LOGIN_EMAIL, "victim@example.com"));
+    }
+
+    @Test
+    public void acquire_TooManyKeys_NewKeysShareOverflowBucket() {
+        RateLimiter rateLimiter = new RateLimiter(1, 1, 1, 1, 1, 1, 1);
+        rateLimiter.acquire(RateLimiter.LOGIN_EMAIL, "a@example.com");
+
+        rateLimiter.acquire(RateLimiter.LOGIN_EMAIL, "b@example.com");
+
+        assertThrows(TooManyRequestsException.class,
+                () -> rateLimiter.acquire(RateLimiter.LOGIN_EMAIL, "c@example.com"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.onlineplatform.security;
+
+import org.junit.jupiter.api.Test;
+import platform.model.User;
+import platform.security.dto.Role;
+import platform.security.service.impl.MyUserDetails;
+import platform.security.service.impl.TokenService;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenServiceTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private final TokenService tokenService = new TokenService(SECRET, 900, false);
+
+    @Test
+    public void verify_issuedToken_ReturnsUser() {
+        String token = tokenService.issue(user());
+
+        Optional<MyUserDetails> details = tokenService.verify(token);
+
+        assertTrue(details.isPresent());
+        assertEquals(5, details.get().getId());
+        assertEquals("a|b@example.com", details.get().getUsername());
+        assertTrue(details.get().getAuthorities().contains(Role.ADMIN));
+    }
+
+    @Test
+    public void verify_tamperedToken_ReturnsEmpty() {
+        String token = tokenService.issue(user());
+        String tampered = (token.charAt(0) == 'A' ? 'B' : 'A') + token.substring(1);
+
+        assertTrue(tokenService.verify(tampered).isEmpty());
+        assertTrue(tokenService.verify("garbage").isEmpty());
+        assertTrue(tokenService.verify("a.b").isEmpty());
+    }
+
+    @Test
+    public void verify_otherSecret_ReturnsEmpty() {
+        String token = new TokenService("fedcba9876543210fedcba9876543210", 900, false).issue(user());
+
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    public void verify_expiredToken_ReturnsEmpty() {
+        String token = new TokenService(SECRET, -1, false).issue(user());
+
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    public void constructor_missingSecret_FailsUnlessAllowed() {
+        assertThrows(IllegalStateException.class, () -> new TokenService("", 900, false));
+
+        TokenService generated = new TokenService("", 900, true);
+        assertTrue(generated.verify(generated.issue(user())).isPresent());
+    }
+
+    @Test
+    public void constructor_shortSecret_Fails() {
+        assertThrows(IllegalStateException.class, () -> new TokenService("secret", 900, true));
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(5);
+        user.setEmail("a|b@example.com");
+        user.setRole(Role.ADMIN);
+        return user;
+    }
+}
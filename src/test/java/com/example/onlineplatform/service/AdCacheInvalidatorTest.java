@@ -0,0 +1,56 @@
+package com.example.onlineplatform.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import platform.config.CacheConfig;
+import platform.repository.AdsRepository;
+import platform.service.CacheInvalidationEvent;
+import platform.service.impl.AdCacheInvalidator;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AdCacheInvalidatorTest {
+
+    @Mock
+    private AdsRepository adsRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private Cache cache;
+    private AdCacheInvalidator invalidator;
+
+    @BeforeEach
+    public void setUp() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.FULL_ADS);
+        cache = cacheManager.getCache(CacheConfig.FULL_ADS);
+        invalidator = new AdCacheInvalidator(adsRepository, cacheManager, eventPublisher);
+    }
+
+    @Test
+    public void evictAuthor_ShouldEvictOnlyAuthorAds() {
+        cache.put(1, "first");
+        cache.put(2, "second");
+        cache.put(3, "foreign");
+        when(adsRepository.findIdsByAuthorId(7)).thenReturn(List.of(1, 2));
+
+        invalidator.evictAuthor(7);
+
+        assertNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(3));
+        verify(eventPublisher).publishEvent(CacheInvalidationEvent.ads(1));
+        verify(eventPublisher).publishEvent(CacheInvalidationEvent.ads(2));
+    }
+}
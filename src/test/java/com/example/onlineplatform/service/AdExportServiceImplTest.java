@@ -0,0 +1,134 @@
+package com.example.onlineplatform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import platform.dto.model_dto.AdsDto;
+import platform.exception.ServiceBusyException;
+import platform.repository.AdsRepository;
+import platform.service.AdImportService;
+import platform.service.impl.AdExportServiceImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AdExportServiceImplTest {
+
+    @Mock
+    private AdsRepository adsRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AdExportServiceImpl exportService;
+
+    @BeforeEach
+    public void setUp() {
+        exportService = new AdExportServiceImpl(adsRepository, transactionManager, new ObjectMapper(), 1);
+    }
+
+    @Test
+    public void exportAds_ndjson_shouldWriteLinePerAdAndCloseStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(adsRepository.streamAllAdsDto()).thenReturn(Stream.of(
+                new AdsDto(1, 7, 500, "Лампа", 3),
+                new AdsDto(2, 7, 100, "Стол", (Integer) null)).onClose(() -> closed.set(true)));
+
+        String body = export(AdImportService.NDJSON);
+
+        assertEquals("""
+                {"pk":1,"author":7,"price":500,"title":"Лампа","image":"/ads/image/3"}
+                {"pk":2,"author":7,"price":100,"title":"Стол","image":null}
+                """, body);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void exportAds_csv_shouldQuoteSpecialCharacters() throws Exception {
+        when(adsRepository.streamAllAdsDto()).thenReturn(Stream.of(
+                new AdsDto(1, 7, 1200, "Шкаф, \"двухдверный\"", (Integer) null)));
+
+        String body = export(AdImportService.CSV);
+
+        assertEquals("pk,author,price,title,image\n1,7,1200,\"Шкаф, \"\"двухдверный\"\"\",\n", body);
+    }
+
+    @Test
+    public void exportAds_whenLimitReached_shouldReturnServiceBusy() throws Exception {
+        when(adsRepository.streamAllAdsDto()).thenAnswer(invocation -> Stream.of(new AdsDto(1, 7, 1, "a", (Integer) null)));
+        StreamingResponseBody second = exportService.exportAds(AdImportService.NDJSON);
+        AtomicBoolean rejected = new AtomicBoolean();
+        OutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void write(byte[] b, int off, int len) {
+                //вторая выгрузка стартует, пока первая ещё пишет
+                rejected.set(assertThrows(ServiceBusyException.class, () -> second.writeTo(new ByteArrayOutputStream())) != null);
+                super.write(b, off, len);
+            }
+        };
+
+        exportService.exportAds(AdImportService.NDJSON).writeTo(out);
+
+        assertTrue(rejected.get());
+        second.writeTo(new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void exportAds_bodyNeverRun_shouldNotHoldPermit() throws Exception {
+        when(adsRepository.streamAllAdsDto()).thenAnswer(invocation -> Stream.empty());
+        exportService.exportAds(AdImportService.NDJSON);
+        exportService.exportAds(AdImportService.NDJSON);
+
+        exportService.exportAds(AdImportService.NDJSON).writeTo(new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void exportAds_clientGone_shouldCloseStreamAndReleasePermit() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(adsRepository.streamAllAdsDto()).thenAnswer(invocation -> Stream.generate(() -> new AdsDto(1, 7, 1, "a", (Integer) null))
+                .onClose(() -> closed.set(true)));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        StreamingResponseBody body = exportService.exportAds(AdImportService.NDJSON);
+        assertThrows(IOException.class, () -> body.writeTo(broken));
+
+        assertTrue(closed.get());
+        exportService.exportAds(AdImportService.NDJSON);
+    }
+
+    @Test
+    public void exportAds_unsupportedFormat_shouldReturnBadRequest() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> exportService.exportAds(MediaType.APPLICATION_XML));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+
+    private String export(MediaType format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportAds(format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.onlineplatform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import platform.dto.ImportResultDto;
+import platform.model.User;
+import platform.repository.UserRepository;
+import platform.service.AdImportService;
+import platform.service.impl.AdImportServiceImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AdImportServiceImplTest {
+
+    private static final String EMAIL = "partner@email.com";
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Captor
+    private ArgumentCaptor<List<Object[]>> rows;
+
+    private AdImportServiceImpl importService;
+
+    @BeforeEach
+    public void setUp() {
+        importService = new AdImportServiceImpl(userRepository, jdbcTemplate, transactionTemplate, new ObjectMapper(), 2, 100, 10, 64);
+        User user = new User();
+        user.setId(7);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    public void importAds_ndjson_shouldInsertInBatchesAndReportBadRows() throws Exception {
+        runTransactionCallbacks();
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), anyInt()))
+                .thenReturn(List.of(101, 102))
+                .thenReturn(List.of(103));
+
+        ImportResultDto result = importService.importAds(body("""
+                {"title": "Лампа", "description": "Настольная", "price": 500}
+                {"title": "", "price": 100}
+
+                {"title": "Стол", "price": 3000}
+                {broken
+                {"title": "Стул", "price": 1500}
+                """), AdImportService.NDJSON, EMAIL);
+
+        assertEquals(3, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals(5, result.getErrors().get(1).getLine());
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("insert into ads "), rows.capture());
+        assertArrayEquals(new Object[]{101, "Лампа", "Настольная", 500, 7}, rows.getAllValues().get(0).get(0));
+        assertArrayEquals(new Object[]{103, "Стул", null, 1500, 7}, rows.getAllValues().get(1).get(0));
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("insert into ads_comment_count"), anyList());
+    }
+
+    @Test
+    public void importAds_csv_shouldParseQuotedValues() throws Exception {
+        runTransactionCallbacks();
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), anyInt())).thenReturn(List.of(1));
+
+        ImportResultDto result = importService.importAds(body("price,title,description\n"
+                + "1200,\"Шкаф, двухдверный\",\"Размер 2\"\"х1\"\"\"\n"
+                + "abc,Кресло,\n"), AdImportService.CSV, EMAIL);
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(3, result.getErrors().get(0).getLine());
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into ads "), rows.capture());
+        assertArrayEquals(new Object[]{1, "Шкаф, двухдверный", "Размер 2\"х1\"", 1200, 7}, rows.getValue().get(0));
+    }
+
+    @Test
+    public void importAds_failedBatch_shouldNotAbortImport() throws Exception {
+        doAnswer(invocation -> {
+            throw new DataIntegrityViolationException("duplicate key");
+        }).doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), anyInt())).thenReturn(List.of(5));
+
+        ImportResultDto result = importService.importAds(body("""
+                {"title": "a", "price": 1}
+                {"title": "b", "price": 2}
+                {"title": "c", "price": 3}
+                """), AdImportService.NDJSON, EMAIL);
+
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getFailed());
+    }
+
+    @Test
+    public void importAds_tooLongLine_shouldBeRowErrorWithoutStoppingImport() throws Exception {
+        runTransactionCallbacks();
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), anyInt())).thenReturn(List.of(1));
+
+        ImportResultDto result = importService.importAds(body("{\"title\": \"" + "x".repeat(100_000) + "\", \"price\": 1}\n"
+                + "{\"title\": \"Стул\", \"price\": 1500}\n"), AdImportService.NDJSON, EMAIL);
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(1, result.getErrors().get(0).getLine());
+    }
+
+    @Test
+    public void importAds_csvWithoutRequiredColumns_shouldReturnBadRequest() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> importService.importAds(body("name,cost\nx,1\n"), AdImportService.CSV, EMAIL));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    private void runTransactionCallbacks() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -4,14 +4,18 @@ import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 import platform.dto.AdCreateDto;
+import platform.dto.CommentCursor;
 import platform.dto.FullAdDto;
+import platform.dto.model_dto.AdsDto;
 import platform.mapper.AdMapper;
 import platform.model.Ads;
 import platform.model.Comment;
@@ -20,8 +24,11 @@ import platform.repository.AdsCommentRepository;
 import platform.repository.AdsRepository;
 import platform.repository.UserRepository;
 import platform.service.ImageService;
+import platform.service.impl.AdCacheInvalidator;
 import platform.service.impl.AdServiceImpl;
+import platform.service.impl.CommentCounter;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -47,17 +54,43 @@ public class AdServiceImplTest {
     @Mock
     private AdsCommentRepository commentRepository;
 
+    @Mock
+    private CommentCounter commentCounter;
+
+    @Mock
+    private AdCacheInvalidator adCacheInvalidator;
+
 
     @Test
     public void testGetAllAds() {
 
-        List<Ads> testAds = Arrays.asList(new Ads(), new Ads());
-        when(adRepository.findAll()).thenReturn(testAds);
-        Collection<Ads> result = adService.getAllAds();
+        List<AdsDto> testAds = Arrays.asList(new AdsDto(), new AdsDto());
+        when(adRepository.findAllAdsDto()).thenReturn(testAds);
+        List<AdsDto> result = adService.getAllAds();
 
         assertEquals(testAds, result);
 
-        verify(adRepository, times(1)).findAll();
+        verify(adRepository, times(1)).findAllAdsDto();
+        verify(adRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetAdsPage() {
+
+        List<AdsDto> testAds = Arrays.asList(new AdsDto(), new AdsDto());
+        when(adRepository.findAdsDtoPage(5, PageRequest.of(0, 2))).thenReturn(testAds);
+
+        List<AdsDto> result = adService.getAdsPage(5, 2);
+
+        assertEquals(testAds, result);
+    }
+
+    @Test
+    public void testGetAdsPage_firstPage() {
+
+        adService.getAdsPage(null, 10);
+
+        verify(adRepository).findAdsDtoPage(0, PageRequest.of(0, 10));
     }
 
 
@@ -81,23 +114,25 @@ public class AdServiceImplTest {
         verify(adMapper).toEntity(adCreateDto);
         verify(imageService).upload(adsImage);
         verify(adRepository).save(ads);
+        verify(commentCounter).adCreated(ads.getId());
 
         assertEquals(ads, result);
     }
 
     @Test
     public void testGetMyAds() {
-        Ads ads = new Ads();
+        AdsDto ads = new AdsDto(1, 1, 100, "title", 5);
         User user = new User();
         user.setId(1);
 
         Mockito.when(userRepository.findByEmail(ArgumentMatchers.anyString())).thenReturn(Optional.of(user));
-        Mockito.when(adRepository.findAllByAdsAuthorId(ArgumentMatchers.anyInt())).thenReturn(Collections.singletonList(ads));
+        Mockito.when(adRepository.findAdsDtoByAuthorId(ArgumentMatchers.anyInt())).thenReturn(Collections.singletonList(ads));
 
-        Collection<Ads> result = adService.getMyAds("example_email@test.com");
+        List<AdsDto> result = adService.getMyAds("example_email@test.com");
 
         Assert.assertEquals(1, result.size());
         Assert.assertEquals(ads, result.iterator().next());
+        Assert.assertEquals("/ads/image/5", result.get(0).getImage());
     }
 
     @Test
@@ -106,12 +141,13 @@ public class AdServiceImplTest {
         int adId = 1;
         FullAdDto expectedFullAdDto = new FullAdDto();
 
-        when(adRepository.findById(adId)).thenReturn(Optional.of(new Ads()));
+        when(adRepository.findWithAuthorById(adId)).thenReturn(Optional.of(new Ads()));
         when(adMapper.toFullAdsDto(any(Ads.class))).thenReturn(expectedFullAdDto);
 
         FullAdDto actualFullAdDto = adService.getFullAd(adId);
 
         assertEquals(expectedFullAdDto, actualFullAdDto);
+        verify(adRepository, never()).findById(adId);
     }
     @Test
     public void testGetComments() {
@@ -130,6 +166,57 @@ public class AdServiceImplTest {
         verify(commentRepository, times(1)).findAllByAdId(adPk);
     }
 
+    @Test
+    public void testGetCommentsPage_firstPage() {
+
+        adService.getCommentsPage(1, null, 20);
+
+        verify(commentRepository).findPage(1, PageRequest.of(0, 20));
+        verify(commentRepository, never()).findAllByAdId(anyInt());
+    }
+
+    @Test
+    public void testGetCommentsPage_afterCursor() {
+
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 10, 15);
+        List<Comment> comments = List.of(new Comment());
+        when(commentRepository.findPageAfter(1, createdAt, 42, PageRequest.of(0, 2))).thenReturn(comments);
+
+        List<Comment> result = adService.getCommentsPage(1, new CommentCursor(createdAt, 42), 2);
+
+        assertEquals(comments, result);
+    }
+
+    @Test
+    public void testGetCommentCount_usesCounter() {
+
+        when(commentCounter.get(1)).thenReturn(1500L);
+
+        assertEquals(1500L, adService.getCommentCount(1));
+        verify(commentRepository, never()).countByAdId(anyInt());
+    }
+
+    @Test
+    public void testDeleteUserContent_bulkStatementsInOrder() {
+
+        when(adRepository.findIdsByAuthorId(7)).thenReturn(List.of(1, 2, 3));
+        when(commentRepository.deleteAllByAuthorId(7)).thenReturn(10);
+        when(commentRepository.deleteAllOnAdsOfAuthor(7)).thenReturn(500);
+        when(adRepository.deleteAllByAuthorId(7)).thenReturn(3);
+
+        int deleted = adService.deleteUserContent(7);
+
+        assertEquals(3, deleted);
+        InOrder inOrder = inOrder(commentCounter, commentRepository, imageService, adRepository, adCacheInvalidator);
+        inOrder.verify(commentCounter).authorCommentsDeleted(7);
+        inOrder.verify(commentRepository).deleteAllByAuthorId(7);
+        inOrder.verify(commentRepository).deleteAllOnAdsOfAuthor(7);
+        inOrder.verify(commentCounter).authorAdsDeleted(7);
+        inOrder.verify(adRepository).deleteAllByAuthorId(7);
+        inOrder.verify(adCacheInvalidator).evict(List.of(1, 2, 3));
+        verify(commentRepository, never()).findAllByAdId(anyInt());
+    }
+
     @Test
     public void testGetAdsComment() {
 
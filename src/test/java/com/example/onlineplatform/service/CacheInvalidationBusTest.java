@@ -0,0 +1,160 @@
+package com.example.onlineplatform.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+import platform.config.CacheConfig;
+import platform.model.Ads;
+import platform.model.Image;
+import platform.model.User;
+import platform.security.service.impl.CachingAuthenticationProvider;
+import platform.service.CacheInvalidationEvent;
+import platform.service.impl.CacheInvalidationBus;
+import platform.service.impl.EmailBloomFilter;
+import platform.service.impl.ImageCache;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheInvalidationBusTest {
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private SessionFactory sessionFactory;
+    @Mock
+    private Cache secondLevelCache;
+    @Mock
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
+    @Mock
+    private ImageCache imageCache;
+
+    private ConcurrentMapCacheManager cacheManager;
+    private CacheInvalidationBus bus;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.FULL_ADS);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(secondLevelCache);
+        bus = new CacheInvalidationBus(dataSource, jdbcTemplate, transactionTemplate, cacheManager,
+                entityManagerFactory, cachingAuthenticationProvider, emailBloomFilter, imageCache, new SimpleMeterRegistry(),
+                true, 20, 100, 1000);
+    }
+
+    @Test
+    public void flush_ShouldSendBatchInOneNotify() {
+        runTransactionCallbacks();
+        bus.onInvalidation(CacheInvalidationEvent.ads(1));
+        bus.onInvalidation(CacheInvalidationEvent.ads(1));
+        bus.onInvalidation(CacheInvalidationEvent.login("user@email.com"));
+
+        bus.flush();
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), eq("cache_invalidation"), payload.capture());
+        String[] lines = payload.getValue().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("ADS:1", lines[1]);
+        assertEquals("LOGIN:user@email.com", lines[2]);
+    }
+
+    @Test
+    public void flush_ShouldSkipWhenNothingPending() {
+        bus.flush();
+
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    public void onNotification_ShouldEvictFromOtherNode() {
+        cacheManager.getCache(CacheConfig.FULL_ADS).put(1, "cached");
+        cacheManager.getCache(CacheConfig.FULL_ADS).put(2, "other");
+
+        bus.onNotification("other-node\nADS:1\nUSER:7\nLOGIN:user@email.com\nEMAIL:new@email.com");
+
+        assertNull(cacheManager.getCache(CacheConfig.FULL_ADS).get(1));
+        assertNotNull(cacheManager.getCache(CacheConfig.FULL_ADS).get(2));
+        verify(secondLevelCache).evictEntityData(Ads.class, 1);
+        verify(secondLevelCache).evictEntityData(User.class, 7);
+        verify(secondLevelCache).evictDefaultQueryRegion();
+        verify(cachingAuthenticationProvider).evict("user@email.com");
+        verify(emailBloomFilter).add("new@email.com");
+    }
+
+    @Test
+    public void onNotification_ShouldEvictImage() {
+        bus.onNotification("other-node\nIMAGE:5:abc");
+
+        verify(imageCache).evict("abc");
+        verify(secondLevelCache).evictEntityData(Image.class, 5);
+    }
+
+    @Test
+    public void onNotification_ShouldIgnoreOwnMessages() {
+        runTransactionCallbacks();
+        bus.onInvalidation(CacheInvalidationEvent.ads(1));
+        bus.flush();
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq("cache_invalidation"), payload.capture());
+        cacheManager.getCache(CacheConfig.FULL_ADS).put(1, "cached");
+
+        bus.onNotification(payload.getValue());
+
+        assertNotNull(cacheManager.getCache(CacheConfig.FULL_ADS).get(1));
+        verify(secondLevelCache, never()).evictEntityData(Ads.class, 1);
+    }
+
+    @Test
+    public void onNotification_ShouldEvictEverythingOnWildcard() {
+        cacheManager.getCache(CacheConfig.FULL_ADS).put(1, "cached");
+
+        bus.onNotification("other-node\n*");
+
+        assertNull(cacheManager.getCache(CacheConfig.FULL_ADS).get(1));
+        verify(secondLevelCache).evictAllRegions();
+        verify(cachingAuthenticationProvider).evictAll();
+        verify(imageCache).evictAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionCallbacks() {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.onlineplatform.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import platform.repository.ImageDataRepository;
+import platform.service.impl.DatabaseImageStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class DatabaseImageStorageTest {
+
+    @Mock
+    private ImageDataRepository imageDataRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private DatabaseImageStorage storage;
+
+    @BeforeEach
+    public void setup() {
+        storage = new DatabaseImageStorage(imageDataRepository, jdbcTemplate, 2);
+    }
+
+    @Test
+    public void store_shouldInsertWithoutCheckingFirst() {
+        byte[] data = {1, 2, 3};
+
+        storage.store("abc", data);
+
+        //параллельная загрузка того же файла не должна упасть на первичном ключе
+        verify(jdbcTemplate).update(contains("on conflict (storage_key) do nothing"), eq("abc"), eq(data));
+        verify(imageDataRepository, never()).existsById(anyString());
+        verify(imageDataRepository, never()).save(any());
+    }
+
+    @Test
+    public void load_shouldNotReadContent() throws IOException {
+        when(imageDataRepository.findDataLength("abc")).thenReturn(5);
+
+        Resource resource = storage.load("abc");
+
+        assertEquals(5, resource.contentLength());
+        verify(imageDataRepository, never()).findById(anyString());
+        verify(imageDataRepository, never()).findDataChunk(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void load_shouldStreamInChunks() throws IOException {
+        when(imageDataRepository.findDataLength("abc")).thenReturn(5);
+        when(imageDataRepository.findDataChunk("abc", 0, 2)).thenReturn(new byte[]{1, 2});
+        when(imageDataRepository.findDataChunk("abc", 2, 2)).thenReturn(new byte[]{3, 4});
+        when(imageDataRepository.findDataChunk("abc", 4, 1)).thenReturn(new byte[]{5});
+
+        try (InputStream in = storage.load("abc").getInputStream()) {
+            assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void load_skipShouldNotReadSkippedChunks() throws IOException {
+        when(imageDataRepository.findDataLength("abc")).thenReturn(5);
+        when(imageDataRepository.findDataChunk("abc", 3, 2)).thenReturn(new byte[]{4, 5});
+
+        try (InputStream in = storage.load("abc").getInputStream()) {
+            assertEquals(3, in.skip(3));
+            assertArrayEquals(new byte[]{4, 5}, in.readAllBytes());
+        }
+        verify(imageDataRepository, never()).findDataChunk("abc", 0, 2);
+    }
+
+    @Test
+    public void load_missingKey_shouldThrowNotFound() {
+        when(imageDataRepository.findDataLength("abc")).thenReturn(null);
+
+        assertThrows(ResponseStatusException.class, () -> storage.load("abc"));
+    }
+}
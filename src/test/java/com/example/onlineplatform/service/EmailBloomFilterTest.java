@@ -0,0 +1,61 @@
+package com.example.onlineplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import platform.repository.UserRepository;
+import platform.service.impl.EmailBloomFilter;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailBloomFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void mightContain_LoadedAndAddedEmails() {
+        EmailBloomFilter filter = filter(1000);
+        when(userRepository.streamAllEmails()).thenReturn(Stream.of("a@example.com", "b@example.com"));
+
+        filter.load();
+        filter.add("c@example.com");
+
+        assertTrue(filter.mightContain("a@example.com"));
+        assertTrue(filter.mightContain("b@example.com"));
+        assertTrue(filter.mightContain("c@example.com"));
+        assertFalse(filter.mightContain(null));
+    }
+
+    @Test
+    public void mightContain_UnknownEmails_MostlyFalse() {
+        EmailBloomFilter filter = filter(1000);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("other" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    private EmailBloomFilter filter(long expectedInsertions) {
+        return new EmailBloomFilter(userRepository, new TransactionTemplate(transactionManager), expectedInsertions, 0.01);
+    }
+}
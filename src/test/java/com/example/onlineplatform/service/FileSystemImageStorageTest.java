@@ -0,0 +1,93 @@
+package com.example.onlineplatform.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.web.server.ResponseStatusException;
+import platform.service.impl.FileSystemImageStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileSystemImageStorageTest {
+
+    private static final String KEY = "abcdef0123456789";
+
+    @TempDir
+    Path root;
+
+    private FileSystemImageStorage storage;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        storage = new FileSystemImageStorage(root.toString());
+    }
+
+    @Test
+    public void store_shouldWriteShardedFile() throws IOException {
+        byte[] data = "test content".getBytes();
+
+        storage.store(KEY, data);
+
+        Path file = root.resolve("ab").resolve("cd").resolve(KEY);
+        assertArrayEquals(data, Files.readAllBytes(file));
+        assertTrue(storage.exists(KEY));
+    }
+
+    @Test
+    public void storeStream_shouldUseContentHashAsKey() throws IOException {
+        byte[] data = "test content".getBytes();
+
+        String key = storage.store(new ByteArrayInputStream(data));
+
+        assertEquals("6ae8a75555209fd6c44157c0aed8016e763ff435a19cf186f76863140143ff72", key);
+        assertArrayEquals(data, Files.readAllBytes(root.resolve("6a").resolve("e8").resolve(key)));
+        try (Stream<Path> tmp = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, tmp.count());
+        }
+    }
+
+    @Test
+    public void storeStream_sameContentTwice_shouldKeepOneFile() throws IOException {
+        String first = storage.store(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        String second = storage.store(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        assertEquals(first, second);
+        assertTrue(storage.exists(first));
+    }
+
+    @Test
+    public void load_shouldReturnFileResource() throws IOException {
+        storage.store(KEY, new byte[]{1, 2, 3});
+
+        Resource resource = storage.load(KEY);
+
+        assertTrue(resource.isFile());
+        assertEquals(3, resource.contentLength());
+    }
+
+    @Test
+    public void load_missingKey_shouldThrowNotFound() {
+        assertThrows(ResponseStatusException.class, () -> storage.load(KEY));
+    }
+
+    @Test
+    public void delete_shouldRemoveFile() throws IOException {
+        storage.store(KEY, new byte[]{1});
+
+        storage.delete(KEY);
+
+        assertFalse(storage.exists(KEY));
+    }
+
+    @Test
+    public void resolve_shouldRejectPathTraversal() {
+        assertThrows(IllegalArgumentException.class, () -> storage.exists("../../etc/passwd"));
+    }
+}
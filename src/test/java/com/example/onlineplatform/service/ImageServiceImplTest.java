@@ -1,55 +1,260 @@
 package com.example.onlineplatform.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import platform.exception.UploadLimitExceededException;
 import platform.model.Image;
+import platform.model.ImageSize;
 import platform.repository.ImageRepository;
+import platform.service.ImageStorage;
+import platform.service.ImageUploadedEvent;
+import platform.service.ImageVariantService;
+import platform.service.impl.ImageCache;
 import platform.service.impl.ImageServiceImpl;
+import platform.service.impl.UploadLimiter;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
 public class ImageServiceImplTest {
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F'};
+    private static final String HASH = "6ae8a75555209fd6c44157c0aed8016e763ff435a19cf186f76863140143ff72";
+
     @Mock
     private ImageRepository imageRepository;
 
+    @Mock
+    private ImageStorage imageStorage;
+
+    @Mock
+    private ImageVariantService imageVariantService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ImageCache imageCache = new ImageCache(1024, 16, new SimpleMeterRegistry());
+
+    @Spy
+    private UploadLimiter uploadLimiter = new UploadLimiter(16, 1);
+
     @InjectMocks
     private ImageServiceImpl imageService;
 
     @Test
     public void testUpload() throws IOException {
         MultipartFile multipartFile = Mockito.mock(MultipartFile.class);
-        byte[] fileContent = "test content".getBytes();
-        Mockito.when(multipartFile.getBytes()).thenReturn(fileContent);
+        byte[] fileContent = JPEG;
+        Mockito.when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(fileContent));
+        Mockito.when(imageStorage.store(Mockito.any(InputStream.class))).thenReturn(HASH);
         Mockito.when(multipartFile.getSize()).thenReturn((long) fileContent.length);
-        Mockito.when(multipartFile.getContentType()).thenReturn("image/jpeg");
 
-        Image savedImage = new Image();
-        savedImage.setId(1);
-        savedImage.setImage(fileContent);
-//        savedImage.setFileSize(fileContent.length);
-        savedImage.setMediaType("image/jpeg");
-
-        Mockito.when(imageRepository.save(Mockito.any(Image.class))).thenReturn(savedImage);
+        Mockito.when(imageRepository.save(Mockito.any(Image.class))).thenAnswer(invocation -> {
+            Image image = invocation.getArgument(0);
+            image.setId(1);
+            return image;
+        });
 
         Image uploadedImage = imageService.upload(multipartFile);
 
-        Assert.assertEquals(savedImage.getId(), uploadedImage.getId());
-        Assert.assertEquals(savedImage.getImage(), uploadedImage.getImage());
-        Assert.assertEquals(savedImage.getFileSize(), uploadedImage.getFileSize());
-        Assert.assertEquals(savedImage.getMediaType(), uploadedImage.getMediaType());
+        Assert.assertEquals(Integer.valueOf(1), uploadedImage.getId());
+        Assert.assertEquals(Long.valueOf(fileContent.length), uploadedImage.getFileSize());
+        Assert.assertEquals("image/jpeg", uploadedImage.getMediaType());
+        Assert.assertEquals(HASH, uploadedImage.getHash());
+        Assert.assertEquals(0, uploadLimiter.getInFlightBytes());
 
-        Mockito.verify(multipartFile, Mockito.times(2)).getBytes();
+        Mockito.verify(multipartFile, Mockito.never()).getBytes();
         Mockito.verify(multipartFile).getSize();
-        Mockito.verify(multipartFile).getContentType();
+        //заявленный клиентом тип не используется, формат берётся из содержимого
+        Mockito.verify(multipartFile, Mockito.never()).getContentType();
         Mockito.verify(imageRepository).save(Mockito.any(Image.class));
+        Mockito.verify(eventPublisher).publishEvent(new ImageUploadedEvent(uploadedImage));
+    }
+
+    @Test
+    public void testUpload_inTransactionHoldsBytesUntilCompletion() throws IOException {
+        MultipartFile multipartFile = Mockito.mock(MultipartFile.class);
+        Mockito.when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(JPEG));
+        Mockito.when(multipartFile.getSize()).thenReturn(10L);
+        Mockito.when(imageStorage.store(Mockito.any(InputStream.class))).thenReturn(HASH);
+        Mockito.when(imageRepository.save(Mockito.any(Image.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            imageService.upload(multipartFile);
+
+            Assert.assertEquals(10, uploadLimiter.getInFlightBytes());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assert.assertEquals(0, uploadLimiter.getInFlightBytes());
+    }
+
+    @Test
+    public void testUpload_notAnImageIsRejected() throws IOException {
+        MultipartFile multipartFile = Mockito.mock(MultipartFile.class);
+        Mockito.when(multipartFile.getSize()).thenReturn(20L);
+        Mockito.when(multipartFile.getInputStream())
+                .thenReturn(new ByteArrayInputStream("<svg onload=alert(1)>".getBytes()));
+
+        ResponseStatusException e = Assert.assertThrows(ResponseStatusException.class,
+                () -> imageService.upload(multipartFile));
+
+        Assert.assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatus());
+        Mockito.verifyNoInteractions(imageStorage, imageRepository);
+        Assert.assertEquals(0, uploadLimiter.getInFlightBytes());
+    }
+
+    @Test
+    public void testUpload_sameContentReusesImage() throws IOException {
+        MultipartFile multipartFile = Mockito.mock(MultipartFile.class);
+        Mockito.when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(JPEG));
+        Mockito.when(imageStorage.store(Mockito.any(InputStream.class))).thenReturn(HASH);
+        Image existing = new Image();
+        existing.setId(7);
+        existing.setHash(HASH);
+        Mockito.when(imageRepository.findFirstByHashOrderByIdAsc(HASH)).thenReturn(Optional.of(existing));
+
+        Image uploadedImage = imageService.upload(multipartFile);
+
+        Assert.assertSame(existing, uploadedImage);
+        Mockito.verify(imageRepository, Mockito.never()).save(Mockito.any(Image.class));
+        Mockito.verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    public void testUpload_tooManyBytesInFlight() {
+        MultipartFile multipartFile = Mockito.mock(MultipartFile.class);
+        Mockito.when(multipartFile.getSize()).thenReturn(10L);
+        uploadLimiter.acquire(10);
+
+        UploadLimitExceededException e = Assert.assertThrows(UploadLimitExceededException.class,
+                () -> imageService.upload(multipartFile));
+
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        Assert.assertEquals("1", e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Mockito.verifyNoInteractions(imageStorage, imageRepository);
+    }
+
+    @Test
+    public void testResolveSize_missingVariantFallsBackToOriginal() {
+        Image image = new Image();
+        image.setHash("abc");
+        Mockito.when(imageVariantService.canCreateVariants(image)).thenReturn(true);
+        Mockito.when(imageStorage.exists("abc_thumbnail")).thenReturn(false);
+
+        Assert.assertEquals(ImageSize.ORIGINAL, imageService.resolveSize(image, ImageSize.THUMBNAIL));
+        Mockito.verify(imageVariantService).schedule(image);
+    }
+
+    @Test
+    public void testResolveSize_noVariantsPossibleSkipsStorage() {
+        Image image = new Image();
+        image.setHash("abc");
+        Mockito.when(imageVariantService.canCreateVariants(image)).thenReturn(false);
+
+        Assert.assertEquals(ImageSize.ORIGINAL, imageService.resolveSize(image, ImageSize.THUMBNAIL));
+        Mockito.verifyNoInteractions(imageStorage);
+        Mockito.verify(imageVariantService, Mockito.never()).schedule(image);
+    }
+
+    @Test
+    public void testResolveSize_existingVariant() {
+        Image image = new Image();
+        image.setHash("abc");
+        Mockito.when(imageVariantService.canCreateVariants(image)).thenReturn(true);
+        Mockito.when(imageStorage.exists("abc_card")).thenReturn(true);
+
+        Assert.assertEquals(ImageSize.CARD, imageService.resolveSize(image, ImageSize.CARD));
+        Mockito.verify(imageVariantService, Mockito.never()).schedule(image);
+    }
+
+    @Test
+    public void testGetImageResource() {
+        Image image = new Image();
+        image.setId(1);
+        image.setHash("abc");
+        Resource resource = new ByteArrayResource(new byte[]{1, 2, 3});
+        Mockito.when(imageStorage.load("abc")).thenReturn(resource);
+
+        Assert.assertEquals(resource, imageService.getImageResource(image, ImageSize.ORIGINAL));
+    }
+
+    @Test
+    public void testGetImageResource_smallImageServedFromCache() throws IOException {
+        Image image = new Image();
+        image.setHash("abc");
+        image.setFileSize(3L);
+        Mockito.when(imageStorage.load("abc")).thenReturn(new ByteArrayResource(new byte[]{1, 2, 3}));
+
+        imageService.getImageResource(image, ImageSize.ORIGINAL);
+        Resource cached = imageService.getImageResource(image, ImageSize.ORIGINAL);
+
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, cached.getInputStream().readAllBytes());
+        Mockito.verify(imageStorage, Mockito.times(1)).load("abc");
+    }
+
+    @Test
+    public void testPurge_evictsCachedImage() {
+        Image image = new Image();
+        image.setId(1);
+        image.setHash("abc");
+        image.setFileSize(3L);
+        Mockito.when(imageStorage.load("abc")).thenReturn(new ByteArrayResource(new byte[]{1, 2, 3}));
+        imageService.getImageResource(image, ImageSize.ORIGINAL);
+        Mockito.when(imageRepository.existsByHash("abc")).thenReturn(true);
+
+        imageService.purge(image);
+
+        Assert.assertNull(imageCache.getContent("abc"));
+    }
+
+    @Test
+    public void testPurge_keepsSharedContent() {
+        Image image = new Image();
+        image.setId(1);
+        image.setHash("abc");
+        Mockito.when(imageRepository.existsByHash("abc")).thenReturn(true);
+
+        imageService.purge(image);
+
+        Mockito.verify(imageStorage, Mockito.never()).delete(Mockito.anyString());
+    }
+
+    @Test
+    public void testPurge_removesUnreferencedContent() {
+        Image image = new Image();
+        image.setId(1);
+        image.setHash("abc");
+        Mockito.when(imageRepository.existsByHash("abc")).thenReturn(false);
+
+        imageService.purge(image);
+
+        Mockito.verify(imageStorage).delete("abc");
+        Mockito.verify(imageStorage).delete("abc_thumbnail");
+        Mockito.verify(imageStorage).delete("abc_card");
+        Mockito.verify(imageStorage).delete("abc_full");
     }
 
     @Test
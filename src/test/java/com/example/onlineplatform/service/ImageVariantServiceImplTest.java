@@ -0,0 +1,127 @@
+package com.example.onlineplatform.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import platform.model.Image;
+import platform.service.ImageStorage;
+import platform.service.impl.ImageVariantServiceImpl;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ImageVariantServiceImplTest {
+
+    @Mock
+    private ImageStorage imageStorage;
+
+    private ImageVariantServiceImpl imageVariantService;
+
+    @BeforeEach
+    public void setUp() {
+        imageVariantService = new ImageVariantServiceImpl(imageStorage, 1, 1, 4_000_000);
+    }
+
+    @Test
+    public void createVariants_shouldScaleDownLargeImage() throws IOException {
+        byte[] png = png(2000, 1000);
+        when(imageStorage.load("abc")).thenReturn(new ByteArrayResource(png));
+
+        Image image = image("image/png");
+
+        imageVariantService.createVariants(image);
+
+        assertTrue(imageVariantService.canCreateVariants(image));
+        ArgumentCaptor<byte[]> thumbnail = ArgumentCaptor.forClass(byte[].class);
+        verify(imageStorage).store(eq("abc_thumbnail"), thumbnail.capture());
+        BufferedImage scaled = ImageIO.read(new ByteArrayInputStream(thumbnail.getValue()));
+        assertEquals(160, scaled.getWidth());
+        assertEquals(80, scaled.getHeight());
+        verify(imageStorage).store(eq("abc_card"), any());
+        verify(imageStorage).store(eq("abc_full"), any());
+    }
+
+    @Test
+    public void createVariants_bmpShouldBeScaledWithoutAlpha() throws IOException {
+        ByteArrayOutputStream bmp = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB), "bmp", bmp);
+        when(imageStorage.load("abc")).thenReturn(new ByteArrayResource(bmp.toByteArray()));
+
+        Image image = image("image/bmp");
+
+        imageVariantService.createVariants(image);
+
+        assertTrue(imageVariantService.canCreateVariants(image));
+        ArgumentCaptor<byte[]> thumbnail = ArgumentCaptor.forClass(byte[].class);
+        verify(imageStorage).store(eq("abc_thumbnail"), thumbnail.capture());
+        assertTrue(thumbnail.getValue().length > 0);
+        BufferedImage scaled = ImageIO.read(new ByteArrayInputStream(thumbnail.getValue()));
+        assertEquals(160, scaled.getWidth());
+        assertEquals(80, scaled.getHeight());
+    }
+
+    @Test
+    public void createVariants_smallImageShouldBeStoredAsIs() throws IOException {
+        byte[] png = png(100, 50);
+        when(imageStorage.load("abc")).thenReturn(new ByteArrayResource(png));
+        when(imageStorage.exists(anyString())).thenAnswer(invocation -> "abc_card".equals(invocation.getArgument(0)));
+
+        imageVariantService.createVariants(image("image/png"));
+
+        verify(imageStorage).store("abc_thumbnail", png);
+        verify(imageStorage).store("abc_full", png);
+        verify(imageStorage, never()).store(eq("abc_card"), any());
+    }
+
+    @Test
+    public void createVariants_unsupportedTypeShouldBeSkipped() throws IOException {
+        Image pdf = image("application/pdf");
+
+        imageVariantService.createVariants(pdf);
+
+        verify(imageStorage, never()).load(anyString());
+        assertFalse(imageVariantService.canCreateVariants(pdf));
+    }
+
+    @Test
+    public void createVariants_tooManyPixelsShouldNotBeDecoded() throws IOException {
+        Image image = image("image/png");
+        when(imageStorage.load("abc")).thenReturn(new ByteArrayResource(png(4000, 1001)));
+
+        imageVariantService.createVariants(image);
+
+        verify(imageStorage, never()).store(anyString(), any());
+        assertFalse(imageVariantService.canCreateVariants(image));
+    }
+
+    private static Image image(String mediaType) {
+        Image image = new Image();
+        image.setHash("abc");
+        image.setMediaType(mediaType);
+        return image;
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+}
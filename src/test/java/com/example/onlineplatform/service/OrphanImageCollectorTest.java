@@ -0,0 +1,88 @@
+package com.example.onlineplatform.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import platform.model.Image;
+import platform.repository.ImageRepository;
+import platform.service.ImageService;
+import platform.service.impl.OrphanImageCollector;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrphanImageCollectorTest {
+
+    @Mock
+    private ImageRepository imageRepository;
+
+    @Mock
+    private ImageService imageService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void collect_shouldDeleteOrphansInBatches() {
+        Image first = image(1, 10L);
+        Image second = image(2, 20L);
+        Image third = image(3, 30L);
+        when(imageRepository.findOrphans(eq(0), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+        when(imageRepository.findOrphans(eq(2), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(third));
+        when(imageRepository.deleteIfOrphan(1)).thenReturn(1);
+        //вторую картинку успели снова использовать
+        when(imageRepository.deleteIfOrphan(2)).thenReturn(0);
+        when(imageRepository.deleteIfOrphan(3)).thenReturn(1);
+
+        collector(false).collect();
+
+        verify(imageService).purge(first);
+        verify(imageService, never()).purge(second);
+        verify(imageService).purge(third);
+        assertEquals(40.0, meterRegistry.get("image.gc.reclaimed.bytes").counter().count());
+        assertEquals(2.0, meterRegistry.get("image.gc.reclaimed.images").counter().count());
+    }
+
+    @Test
+    public void collect_dryRun_shouldOnlyCount() {
+        when(imageRepository.findOrphans(eq(0), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(image(1, 10L)));
+
+        collector(true).collect();
+
+        verify(imageRepository, never()).deleteIfOrphan(anyInt());
+        verify(imageService, never()).purge(any(Image.class));
+        assertEquals(10.0, meterRegistry.get("image.gc.reclaimed.bytes").tag("dry.run", "true").counter().count());
+    }
+
+    private OrphanImageCollector collector(boolean dryRun) {
+        return new OrphanImageCollector(imageRepository, imageService, new TransactionTemplate(transactionManager),
+                meterRegistry, 2, 10, 0, 24, dryRun);
+    }
+
+    private static Image image(int id, Long fileSize) {
+        Image image = new Image();
+        image.setId(id);
+        image.setFileSize(fileSize);
+        image.setHash("hash" + id);
+        return image;
+    }
+}
@@ -5,23 +5,42 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import platform.dto.model_dto.UserDto;
+import platform.exception.RegisterException;
 import platform.model.User;
 import platform.repository.UserRepository;
 import platform.security.dto.Role;
+import platform.security.service.impl.CachingAuthenticationProvider;
+import platform.service.impl.AdCacheInvalidator;
+import platform.service.impl.EmailBloomFilter;
 import platform.service.impl.UserServiceImpl;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
+    @Mock
+    private AdCacheInvalidator adCacheInvalidator;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -31,24 +50,41 @@ public class UserServiceImplTest {
         user.setEmail("test@example.com");
         user.setPassword("password");
 
-        when(userRepository.existsByEmailContains(anyString())).thenReturn(false);
+        when(passwordEncoder.encode("password")).thenReturn("hash");
         when(userRepository.save(any(User.class))).thenReturn(user);
 
         User addedUser = userService.addUser(user);
 
         assertEquals(user.getEmail(), addedUser.getEmail());
-        assertEquals(user.getPassword(), addedUser.getPassword());
+        assertEquals("hash", addedUser.getPassword());
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(emailBloomFilter).add("test@example.com");
     }
 
     @Test()
     public void addUser_ExistingUser_ShouldThrowValidationException() {
+        User user = new User();
+        user.setEmail(" Test@Example.com");
+        user.setPassword("password");
+
+        when(emailBloomFilter.mightContain("test@example.com")).thenReturn(true);
+        when(userRepository.existsByEmail("test@example.com")).thenReturn(true);
+
+        assertThrows(RegisterException.class, () -> userService.addUser(user));
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    public void addUser_BloomFilterMaybe_NewEmail_ShouldSave() {
         User user = new User();
         user.setEmail("test@example.com");
         user.setPassword("password");
 
-        when(userRepository.existsByEmailContains(anyString())).thenReturn(true);
+        when(emailBloomFilter.mightContain("test@example.com")).thenReturn(true);
+        when(userRepository.existsByEmail("test@example.com")).thenReturn(false);
+        when(userRepository.save(any(User.class))).thenReturn(user);
 
-        userService.addUser(user);
+        assertEquals(user, userService.addUser(user));
     }
 
     @Test
@@ -57,7 +93,6 @@ public class UserServiceImplTest {
         user.setEmail("test@example.com");
         user.setPassword("password");
 
-        when(userRepository.existsByEmailContains(anyString())).thenReturn(false);
         when(userRepository.save(any(User.class))).thenReturn(user);
 
         User addedUser = userService.addUser(user);
@@ -75,6 +110,7 @@ public class UserServiceImplTest {
         userDto.setPhone("+123456789");
 
         User existingUser = new User();
+        existingUser.setId(7);
         existingUser.setEmail(email);
 
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(existingUser));
@@ -85,6 +121,7 @@ public class UserServiceImplTest {
         assertEquals(userDto.getFirstName(), updatedUser.getFirstName());
         assertEquals(userDto.getLastName(), updatedUser.getLastName());
         assertEquals(userDto.getPhone(), updatedUser.getPhone());
+        verify(adCacheInvalidator).evictAuthor(7);
     }
 
 